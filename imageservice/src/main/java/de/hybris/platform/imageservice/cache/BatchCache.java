@@ -0,0 +1,27 @@
+package de.hybris.platform.imageservice.cache;
+
+import java.util.Collection;
+import java.util.Map;
+import org.springframework.cache.Cache;
+
+/**
+ * {@link Cache} that is able to read and write several entries with a single operation against the
+ * underlying store.
+ */
+public interface BatchCache extends Cache
+{
+  /**
+   * Returns the values mapped to the given keys. Keys without value are not present in the result.
+   *
+   * @param keys - keys to look up
+   * @return found values by key
+   */
+  Map<Object, Object> getAll(Collection<?> keys);
+
+  /**
+   * Stores the given values.
+   *
+   * @param values - values by key
+   */
+  void putAll(Map<?, ?> values);
+}
@@ -0,0 +1,114 @@
+package de.hybris.platform.imageservice.cache;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import de.hybris.platform.imageservice.cache.model.SearchImageCacheData;
+
+/**
+ * Binary form of compact bounding box keys. A compact key is a 128 bit upload key encoded in 22 URL
+ * safe Base64 characters, optionally followed by the separator and the index of the bounding box. It
+ * is stored in 16 bytes, or 20 bytes with the index, instead of its characters.
+ */
+public final class CompactKeyCodec
+{
+  public static final int KEY_BYTES = 16;
+
+  private static final int KEY_LENGTH = 22;
+  private static final int INDEX_BYTES = 4;
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder()
+      .withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private CompactKeyCodec()
+  {
+  }
+
+  /**
+   * Encodes 128 bits in 22 URL safe characters.
+   */
+  public static String toString(final byte[] key)
+  {
+    return ENCODER.encodeToString(key);
+  }
+
+  /**
+   * Returns the binary form of the given key.
+   *
+   * @param key - cache key
+   * @return binary form, null if the key is not a compact key
+   */
+  public static byte[] encode(final String key)
+  {
+    if (key.length() < KEY_LENGTH || !isKey(key.substring(0, KEY_LENGTH)))
+    {
+      return null;
+    }
+    final byte[] upload = DECODER.decode(key.substring(0, KEY_LENGTH));
+    if (key.length() == KEY_LENGTH)
+    {
+      return upload;
+    }
+
+    final String suffix = key.substring(KEY_LENGTH);
+    if (!suffix.startsWith(SearchImageCacheData.KEY_SEPARATOR))
+    {
+      return null;
+    }
+    final String index = suffix.substring(SearchImageCacheData.KEY_SEPARATOR.length());
+    if (!isIndex(index))
+    {
+      return null;
+    }
+    return ByteBuffer.allocate(KEY_BYTES + INDEX_BYTES)
+        .put(upload)
+        .putInt(Integer.parseInt(index))
+        .array();
+  }
+
+  /**
+   * Returns the key of the given binary form.
+   *
+   * @param binary - binary form returned by {@link #encode(String)}
+   * @return cache key
+   */
+  public static String decode(final ByteBuffer binary)
+  {
+    final byte[] upload = new byte[KEY_BYTES];
+    binary.get(upload);
+    final String key = toString(upload);
+    return binary.remaining() >= INDEX_BYTES
+        ? key + SearchImageCacheData.KEY_SEPARATOR + binary.getInt()
+        : key;
+  }
+
+  private static boolean isKey(final String key)
+  {
+    for (int i = 0; i < key.length(); i++)
+    {
+      final char c = key.charAt(i);
+      if (!((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-'
+          || c == '_'))
+      {
+        return false;
+      }
+    }
+    // the last character carries only 2 bits, keys with other bits set are not canonical
+    return toString(DECODER.decode(key)).equals(key);
+  }
+
+  private static boolean isIndex(final String index)
+  {
+    if (index.isEmpty() || index.length() > 9 || (index.length() > 1 && index.charAt(0) == '0'))
+    {
+      return false;
+    }
+    for (int i = 0; i < index.length(); i++)
+    {
+      if (index.charAt(i) < '0' || index.charAt(i) > '9')
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+}
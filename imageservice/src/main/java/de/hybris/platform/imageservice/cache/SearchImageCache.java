@@ -1,6 +1,12 @@
 package de.hybris.platform.imageservice.cache;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
 import org.springframework.cache.Cache;
 import org.springframework.cache.support.NoOpCache;
 import lombok.extern.slf4j.Slf4j;
@@ -9,7 +15,7 @@ import lombok.extern.slf4j.Slf4j;
  * Custom implementation of cache to enable two level caching.
  */
 @Slf4j
-public class SearchImageCache implements Cache
+public class SearchImageCache implements BatchCache
 {
   private String name;
   private Cache levelOneCache;
@@ -90,6 +96,49 @@ public class SearchImageCache implements Cache
     return value;
   }
 
+  @Override
+  public Map<Object, Object> getAll(Collection<?> keys)
+  {
+    log.debug("get all from cache");
+
+    Map<Object, Object> values = getAll(levelOneCache, keys);
+    List<Object> missingKeys = keys.stream()
+        .filter(key -> !values.containsKey(key))
+        .collect(Collectors.toList());
+    if (!missingKeys.isEmpty())
+    {
+      Map<Object, Object> nextLevelValues = getAll(nextLevelCache, missingKeys);
+      nextLevelValues.forEach(levelOneCache::put);
+      values.putAll(nextLevelValues);
+    }
+    return values;
+  }
+
+  @SuppressWarnings("unchecked")
+  protected Map<Object, Object> getAll(Cache cache, Collection<?> keys)
+  {
+    if (cache instanceof BatchCache)
+    {
+      return ((BatchCache) cache).getAll(keys);
+    }
+    if (cache.getNativeCache() instanceof javax.cache.Cache)
+    {
+      return new HashMap<>(((javax.cache.Cache<Object, Object>) cache.getNativeCache())
+          .getAll(new HashSet<>(keys)));
+    }
+
+    Map<Object, Object> values = new HashMap<>();
+    for (Object key : keys)
+    {
+      ValueWrapper value = cache.get(key);
+      if (value != null && value.get() != null)
+      {
+        values.put(key, value.get());
+      }
+    }
+    return values;
+  }
+
   @Override
   public void put(Object o, Object o1)
   {
@@ -98,6 +147,29 @@ public class SearchImageCache implements Cache
     nextLevelCache.put(o, o1);
   }
 
+  @Override
+  public void putAll(Map<?, ?> values)
+  {
+    log.debug("put all into cache");
+    putAll(levelOneCache, values);
+    putAll(nextLevelCache, values);
+  }
+
+  @SuppressWarnings("unchecked")
+  protected void putAll(Cache cache, Map<?, ?> values)
+  {
+    if (cache instanceof BatchCache)
+    {
+      ((BatchCache) cache).putAll(values);
+    } else if (cache.getNativeCache() instanceof javax.cache.Cache)
+    {
+      ((javax.cache.Cache<Object, Object>) cache.getNativeCache()).putAll(values);
+    } else
+    {
+      values.forEach(cache::put);
+    }
+  }
+
   @Override
   public ValueWrapper putIfAbsent(Object o, Object o1)
   {
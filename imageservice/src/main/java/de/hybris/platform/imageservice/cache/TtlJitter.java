@@ -0,0 +1,68 @@
+package de.hybris.platform.imageservice.cache;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Spreads the expiration of cache entries, so that entries written at the same time do not expire at
+ * the same time on every node.
+ */
+public final class TtlJitter
+{
+  private TtlJitter()
+  {
+  }
+
+  /**
+   * Shortens the given time to live by a random part of up to the given ratio.
+   *
+   * @param ttl - time to live
+   * @param ratio - maximum part of the time to live to cut off, between 0 and 1
+   * @return jittered time to live
+   */
+  public static Duration jitter(final Duration ttl, final double ratio)
+  {
+    if (ttl == null || ttl.isZero() || ttl.isNegative() || ratio <= 0)
+    {
+      return ttl;
+    }
+    return Duration.ofMillis(jitter(ttl.toMillis(), ratio));
+  }
+
+  /**
+   * Shortens the given time to live in milliseconds by a random part of up to the given ratio.
+   */
+  public static long jitter(final long ttlMillis, final double ratio)
+  {
+    if (ttlMillis <= 0 || ratio <= 0)
+    {
+      return ttlMillis;
+    }
+    final double cut = ThreadLocalRandom.current()
+        .nextDouble(Math.min(ratio, 1));
+    return Math.max(1, (long) (ttlMillis * (1 - cut)));
+  }
+
+  /**
+   * Decides whether an entry should be refreshed before it expires (XFetch). The probability grows
+   * as the expiration comes closer and with the time the value took to compute, so that usually a
+   * single reader refreshes a hot entry shortly before it expires.
+   *
+   * @param now - current time in milliseconds
+   * @param expiryTime - expiration time in milliseconds
+   * @param computeTimeMillis - time the value took to compute
+   * @param beta - values above 1 favor earlier refreshes
+   * @return true if the entry should be refreshed now
+   */
+  public static boolean shouldRefreshEarly(final long now, final long expiryTime,
+      final long computeTimeMillis, final double beta)
+  {
+    if (computeTimeMillis <= 0 || beta <= 0)
+    {
+      return now >= expiryTime;
+    }
+    final double random = 1 - ThreadLocalRandom.current()
+        .nextDouble();
+    return now - computeTimeMillis * beta * Math.log(random) >= expiryTime;
+  }
+}
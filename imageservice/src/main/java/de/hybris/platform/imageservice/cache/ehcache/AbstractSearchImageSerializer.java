@@ -0,0 +1,126 @@
+package de.hybris.platform.imageservice.cache.ehcache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+/**
+ * Base of the serializers of the cached types. Values are written field by field instead of with
+ * Java serialization, which keeps them small and fast to read from the off-heap and disk tiers.
+ */
+public abstract class AbstractSearchImageSerializer<T> implements Serializer<T>
+{
+  @Override
+  public ByteBuffer serialize(T value) throws SerializerException
+  {
+    try
+    {
+      final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+      write(value, new DataOutputStream(bytes));
+      return ByteBuffer.wrap(bytes.toByteArray());
+    } catch (IOException e)
+    {
+      throw new SerializerException(e);
+    }
+  }
+
+  @Override
+  public T read(ByteBuffer binary) throws ClassNotFoundException, SerializerException
+  {
+    final byte[] bytes = new byte[binary.remaining()];
+    binary.get(bytes);
+    try
+    {
+      return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    } catch (IOException e)
+    {
+      throw new SerializerException(e);
+    }
+  }
+
+  @Override
+  public boolean equals(T value, ByteBuffer binary)
+      throws ClassNotFoundException, SerializerException
+  {
+    return value.equals(read(binary));
+  }
+
+  protected abstract void write(T value, DataOutput output) throws IOException;
+
+  protected abstract T read(DataInput input) throws IOException;
+
+  protected void writeString(final String value, final DataOutput output) throws IOException
+  {
+    writeBytes(value != null ? value.getBytes(StandardCharsets.UTF_8) : null, output);
+  }
+
+  protected String readString(final DataInput input) throws IOException
+  {
+    final byte[] bytes = readBytes(input);
+    return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+  }
+
+  protected void writeBytes(final byte[] value, final DataOutput output) throws IOException
+  {
+    if (value == null)
+    {
+      output.writeInt(-1);
+      return;
+    }
+    output.writeInt(value.length);
+    output.write(value);
+  }
+
+  protected byte[] readBytes(final DataInput input) throws IOException
+  {
+    final int length = input.readInt();
+    if (length < 0)
+    {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+
+  protected void writeStrings(final Collection<String> values, final DataOutput output)
+      throws IOException
+  {
+    if (values == null)
+    {
+      output.writeInt(-1);
+      return;
+    }
+    output.writeInt(values.size());
+    for (final String value : values)
+    {
+      writeString(value, output);
+    }
+  }
+
+  protected List<String> readStrings(final DataInput input) throws IOException
+  {
+    final int size = input.readInt();
+    if (size < 0)
+    {
+      return null;
+    }
+    final List<String> values = new ArrayList<>(size);
+    for (int i = 0; i < size; i++)
+    {
+      values.add(readString(input));
+    }
+    return values;
+  }
+}
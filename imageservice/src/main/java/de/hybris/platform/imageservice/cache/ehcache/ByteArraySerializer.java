@@ -0,0 +1,42 @@
+package de.hybris.platform.imageservice.cache.ehcache;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+
+/**
+ * Serializer of byte arrays, stored as they are.
+ */
+public class ByteArraySerializer implements Serializer<byte[]>
+{
+  public ByteArraySerializer()
+  {
+  }
+
+  public ByteArraySerializer(final ClassLoader classLoader)
+  {
+    this();
+  }
+
+  @Override
+  public ByteBuffer serialize(byte[] value) throws SerializerException
+  {
+    return ByteBuffer.wrap(value);
+  }
+
+  @Override
+  public byte[] read(ByteBuffer binary) throws ClassNotFoundException, SerializerException
+  {
+    final byte[] value = new byte[binary.remaining()];
+    binary.get(value);
+    return value;
+  }
+
+  @Override
+  public boolean equals(byte[] value, ByteBuffer binary)
+      throws ClassNotFoundException, SerializerException
+  {
+    return Arrays.equals(value, read(binary));
+  }
+}
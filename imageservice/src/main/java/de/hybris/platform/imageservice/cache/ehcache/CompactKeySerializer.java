@@ -0,0 +1,55 @@
+package de.hybris.platform.imageservice.cache.ehcache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.ehcache.spi.serialization.Serializer;
+import org.ehcache.spi.serialization.SerializerException;
+import de.hybris.platform.imageservice.cache.CompactKeyCodec;
+
+/**
+ * Key serializer storing compact bounding box keys in their binary form and other keys as UTF-8.
+ */
+public class CompactKeySerializer implements Serializer<String>
+{
+  private static final byte STRING = 0;
+  private static final byte COMPACT = 1;
+
+  public CompactKeySerializer()
+  {
+  }
+
+  public CompactKeySerializer(final ClassLoader classLoader)
+  {
+    this();
+  }
+
+  @Override
+  public ByteBuffer serialize(String key) throws SerializerException
+  {
+    final byte[] compact = CompactKeyCodec.encode(key);
+    final byte[] binary = compact != null ? compact : key.getBytes(StandardCharsets.UTF_8);
+    return (ByteBuffer) ByteBuffer.allocate(1 + binary.length)
+        .put(compact != null ? COMPACT : STRING)
+        .put(binary)
+        .flip();
+  }
+
+  @Override
+  public String read(ByteBuffer binary) throws ClassNotFoundException, SerializerException
+  {
+    if (binary.get() == COMPACT)
+    {
+      return CompactKeyCodec.decode(binary);
+    }
+    final byte[] bytes = new byte[binary.remaining()];
+    binary.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public boolean equals(String key, ByteBuffer binary)
+      throws ClassNotFoundException, SerializerException
+  {
+    return key.equals(read(binary));
+  }
+}
@@ -1,27 +1,41 @@
 package de.hybris.platform.imageservice.cache.ehcache;
 
+import java.io.File;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import javax.cache.CacheManager;
 import javax.cache.Caching;
 import org.ehcache.config.CacheConfiguration;
-import org.ehcache.config.ResourcePools;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
-import org.ehcache.config.builders.ExpiryPolicyBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
 import org.ehcache.config.units.EntryUnit;
 import org.ehcache.config.units.MemoryUnit;
 import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.spi.serialization.Serializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.jcache.JCacheCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import de.hybris.platform.imageservice.cache.model.SearchImageCacheData;
+import de.hybris.platform.imageservice.cache.model.SearchImageResponseCacheData;
+import de.hybris.platform.imageservice.dto.SearchImageData;
 
+/**
+ * EhCache configuration. The caches have typed keys and values with custom serializers for the
+ * off-heap and disk tiers. The resource pools of a cache can be configured with
+ * cache.ehcache.&lt;cache name&gt;.* properties, which default to the cache.ehcache.* properties. The
+ * disk tier is only used if cache.ehcache.disk.mb is greater than 0.
+ */
 @Configuration
 public class EhCacheConfig
 {
+  private static final String PROPERTY_PREFIX = "cache.ehcache.";
+
   @Value("${cache.ehcache.idle.time}")
   private int idleTime;
 
@@ -31,9 +45,45 @@ public class EhCacheConfig
   @Value("${cache.ehcache.offheap.mb}")
   private int offHeap;
 
+  @Value("${cache.ehcache.disk.mb}")
+  private int disk;
+
+  @Value("${cache.ehcache.disk.persistent}")
+  private boolean diskPersistent;
+
+  @Value("${cache.ehcache.disk.path}")
+  private String diskPath;
+
   @Value("${cache.name}")
   private String cacheName;
 
+  @Value("${cache.links.name}")
+  private String linksCacheName;
+
+  @Value("${cache.response.name}")
+  private String responseCacheName;
+
+  @Value("${cache.regions.name}")
+  private String regionsCacheName;
+
+  @Value("${cache.images.name}")
+  private String imagesCacheName;
+
+  @Value("${cache.images.seconds}")
+  private int imagesIdleTime;
+
+  @Value("${cache.images.heap.entries.size}")
+  private int imagesMaxEntries;
+
+  @Value("${cache.images.offheap.mb}")
+  private int imagesOffHeap;
+
+  @Value("${cache.ttl.jitter}")
+  private double ttlJitter;
+
+  @Autowired
+  private Environment environment;
+
   @Bean
   public JCacheCacheManager jCacheCacheManager()
   {
@@ -45,23 +95,67 @@ public class EhCacheConfig
   @Bean
   public CacheManager ehCacheManager()
   {
-    ResourcePools resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
-        .heap(maxEntries, EntryUnit.ENTRIES).offheap(offHeap, MemoryUnit.MB).build();
-
-
-    CacheConfiguration<Object, Object> cacheConfiguration = CacheConfigurationBuilder
-        .newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
-        .withExpiry(ExpiryPolicyBuilder.timeToIdleExpiration(Duration.ofSeconds(idleTime))).build();
-
     Map<String, CacheConfiguration<?, ?>> caches = new HashMap<>();
-    caches.put(cacheName, cacheConfiguration);
+    caches.put(cacheName, createCacheConfiguration(cacheName, SearchImageCacheData.class,
+        new SearchImageCacheDataSerializer()));
+    caches.put(linksCacheName, createCacheConfiguration(linksCacheName, SearchImageCacheData.class,
+        new SearchImageCacheDataSerializer()));
+    caches.put(responseCacheName, createCacheConfiguration(responseCacheName,
+        SearchImageResponseCacheData.class, new SearchImageResponseCacheDataSerializer()));
+    caches.put(regionsCacheName, createCacheConfiguration(regionsCacheName, SearchImageData.class,
+        new SearchImageDataSerializer()));
+    caches.put(imagesCacheName, createCacheConfiguration(imagesCacheName, byte[].class,
+        new ByteArraySerializer(), imagesMaxEntries, imagesOffHeap, imagesIdleTime));
 
     EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
         .getCachingProvider("org.ehcache.jsr107.EhcacheCachingProvider");
-    org.ehcache.config.Configuration configuration =
-        new DefaultConfiguration(caches, provider.getDefaultClassLoader());
+    org.ehcache.config.Configuration configuration = isDiskEnabled()
+        ? new DefaultConfiguration(caches, provider.getDefaultClassLoader(),
+            new DefaultPersistenceConfiguration(new File(diskPath)))
+        : new DefaultConfiguration(caches, provider.getDefaultClassLoader());
 
     return provider.getCacheManager(provider.getDefaultURI(), configuration);
   }
 
+  protected <V> CacheConfiguration<String, V> createCacheConfiguration(final String name,
+      final Class<V> valueType, final Serializer<V> valueSerializer)
+  {
+    return createCacheConfiguration(name, valueType, valueSerializer, maxEntries, offHeap, idleTime);
+  }
+
+  protected <V> CacheConfiguration<String, V> createCacheConfiguration(final String name,
+      final Class<V> valueType, final Serializer<V> valueSerializer, final long defaultMaxEntries,
+      final long defaultOffHeap, final long defaultIdleTime)
+  {
+    ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+        .heap(getProperty(name, "heap.entries.size", defaultMaxEntries), EntryUnit.ENTRIES)
+        .offheap(getProperty(name, "offheap.mb", defaultOffHeap), MemoryUnit.MB);
+    final long cacheDisk = getProperty(name, "disk.mb", disk);
+    if (cacheDisk > 0)
+    {
+      resourcePools = resourcePools.disk(cacheDisk, MemoryUnit.MB, diskPersistent);
+    }
+
+    return CacheConfigurationBuilder
+        .newCacheConfigurationBuilder(String.class, valueType, resourcePools.build())
+        .withExpiry(new JitteredExpiryPolicy(
+            Duration.ofSeconds(getProperty(name, "idle.time", defaultIdleTime)), ttlJitter))
+        .withKeySerializer(new CompactKeySerializer())
+        .withValueSerializer(valueSerializer)
+        .build();
+  }
+
+  protected boolean isDiskEnabled()
+  {
+    return getProperty(cacheName, "disk.mb", disk) > 0
+        || getProperty(linksCacheName, "disk.mb", disk) > 0
+        || getProperty(responseCacheName, "disk.mb", disk) > 0
+        || getProperty(regionsCacheName, "disk.mb", disk) > 0
+        || getProperty(imagesCacheName, "disk.mb", disk) > 0;
+  }
+
+  private long getProperty(final String name, final String key, final long defaultValue)
+  {
+    return environment.getProperty(PROPERTY_PREFIX + name + "." + key, Long.class, defaultValue);
+  }
 }
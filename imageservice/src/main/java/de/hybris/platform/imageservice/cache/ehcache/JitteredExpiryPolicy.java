@@ -0,0 +1,40 @@
+package de.hybris.platform.imageservice.cache.ehcache;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.ehcache.expiry.ExpiryPolicy;
+import de.hybris.platform.imageservice.cache.TtlJitter;
+
+/**
+ * Time to idle expiry policy with a jittered duration.
+ */
+public class JitteredExpiryPolicy implements ExpiryPolicy<Object, Object>
+{
+  private final Duration idleTime;
+  private final double ratio;
+
+  public JitteredExpiryPolicy(final Duration idleTime, final double ratio)
+  {
+    this.idleTime = idleTime;
+    this.ratio = ratio;
+  }
+
+  @Override
+  public Duration getExpiryForCreation(Object key, Object value)
+  {
+    return TtlJitter.jitter(idleTime, ratio);
+  }
+
+  @Override
+  public Duration getExpiryForAccess(Object key, Supplier<? extends Object> value)
+  {
+    return TtlJitter.jitter(idleTime, ratio);
+  }
+
+  @Override
+  public Duration getExpiryForUpdate(Object key, Supplier<? extends Object> oldValue,
+      Object newValue)
+  {
+    return TtlJitter.jitter(idleTime, ratio);
+  }
+}
@@ -0,0 +1,43 @@
+package de.hybris.platform.imageservice.cache.ehcache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import de.hybris.platform.imageservice.cache.model.SearchImageCacheData;
+
+/**
+ * Serializer of {@link SearchImageCacheData}.
+ */
+public class SearchImageCacheDataSerializer extends AbstractSearchImageSerializer<SearchImageCacheData>
+{
+  public SearchImageCacheDataSerializer()
+  {
+  }
+
+  public SearchImageCacheDataSerializer(final ClassLoader classLoader)
+  {
+    this();
+  }
+
+  @Override
+  protected void write(final SearchImageCacheData value, final DataOutput output) throws IOException
+  {
+    writeString(value.getKey(), output);
+    writeString(value.getLink(), output);
+    writeStrings(value.getIds(), output);
+    output.writeLong(value.getExpiryTime());
+    output.writeBoolean(value.isFailed());
+    output.writeLong(value.getComputeTime());
+  }
+
+  @Override
+  protected SearchImageCacheData read(final DataInput input) throws IOException
+  {
+    final SearchImageCacheData value =
+        new SearchImageCacheData(readString(input), readString(input), readStrings(input));
+    value.setExpiryTime(input.readLong());
+    value.setFailed(input.readBoolean());
+    value.setComputeTime(input.readLong());
+    return value;
+  }
+}
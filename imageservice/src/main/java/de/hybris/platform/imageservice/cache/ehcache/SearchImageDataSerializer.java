@@ -0,0 +1,76 @@
+package de.hybris.platform.imageservice.cache.ehcache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import de.hybris.platform.imageservice.dto.SearchImageData;
+import de.hybris.platform.imageservice.dto.SearchImageItemData;
+
+/**
+ * Serializer of {@link SearchImageData}.
+ */
+public class SearchImageDataSerializer extends AbstractSearchImageSerializer<SearchImageData>
+{
+  public SearchImageDataSerializer()
+  {
+  }
+
+  public SearchImageDataSerializer(final ClassLoader classLoader)
+  {
+    this();
+  }
+
+  @Override
+  protected void write(final SearchImageData value, final DataOutput output) throws IOException
+  {
+    writeString(value.getDigest(), output);
+    final Collection<SearchImageItemData> boundingBoxes = value.getBoundingBoxes();
+    output.writeInt(boundingBoxes != null ? boundingBoxes.size() : -1);
+    if (boundingBoxes != null)
+    {
+      for (final SearchImageItemData item : boundingBoxes)
+      {
+        writeString(item.getId(), output);
+        writeString(item.getLabel(), output);
+        writeDecimal(item.getX1(), output);
+        writeDecimal(item.getY1(), output);
+        writeDecimal(item.getX2(), output);
+        writeDecimal(item.getY2(), output);
+      }
+    }
+  }
+
+  @Override
+  protected SearchImageData read(final DataInput input) throws IOException
+  {
+    final SearchImageData value = new SearchImageData();
+    value.setDigest(readString(input));
+    final int size = input.readInt();
+    if (size >= 0)
+    {
+      final List<SearchImageItemData> boundingBoxes = new ArrayList<>(size);
+      for (int i = 0; i < size; i++)
+      {
+        boundingBoxes.add(new SearchImageItemData(readString(input), readString(input),
+            readDecimal(input), readDecimal(input), readDecimal(input), readDecimal(input)));
+      }
+      value.setBoundingBoxes(boundingBoxes);
+    }
+    return value;
+  }
+
+  private void writeDecimal(final BigDecimal value, final DataOutput output) throws IOException
+  {
+    writeString(value != null ? value.toString() : null, output);
+  }
+
+  private BigDecimal readDecimal(final DataInput input) throws IOException
+  {
+    final String value = readString(input);
+    return value != null ? new BigDecimal(value) : null;
+  }
+}
@@ -0,0 +1,40 @@
+package de.hybris.platform.imageservice.cache.ehcache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import de.hybris.platform.imageservice.cache.model.SearchImageResponseCacheData;
+
+/**
+ * Serializer of {@link SearchImageResponseCacheData}.
+ */
+public class SearchImageResponseCacheDataSerializer
+    extends AbstractSearchImageSerializer<SearchImageResponseCacheData>
+{
+  public SearchImageResponseCacheDataSerializer()
+  {
+  }
+
+  public SearchImageResponseCacheDataSerializer(final ClassLoader classLoader)
+  {
+    this();
+  }
+
+  @Override
+  protected void write(final SearchImageResponseCacheData value, final DataOutput output)
+      throws IOException
+  {
+    writeString(value.getKey(), output);
+    writeBytes(value.getBody(), output);
+    writeString(value.getETag(), output);
+    output.writeLong(value.getFreshUntil());
+    output.writeLong(value.getExpiryTime());
+  }
+
+  @Override
+  protected SearchImageResponseCacheData read(final DataInput input) throws IOException
+  {
+    return new SearchImageResponseCacheData(readString(input), readBytes(input), readString(input),
+        input.readLong(), input.readLong());
+  }
+}
@@ -2,6 +2,7 @@ package de.hybris.platform.imageservice.cache.model;
 
 import java.io.Serializable;
 import java.util.Collection;
+import org.springframework.util.CollectionUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,8 +13,46 @@ import lombok.NoArgsConstructor;
 public class SearchImageCacheData implements Serializable
 {
   private static final long serialVersionUID = -4873254992661735776L;
+
+  /**
+   * Separator between the upload key and the index of a bounding box in the key of a bounding box.
+   */
+  public static final String KEY_SEPARATOR = ".";
+
   private String key;
   private String link;
   private Collection<String> ids;
 
+  /**
+   * Time in milliseconds until the ids are fresh, 0 if the ids were never resolved.
+   */
+  private long expiryTime;
+
+  /**
+   * True if the last resolution of the ids failed. The ids of the previous resolution are kept.
+   */
+  private boolean failed;
+
+  /**
+   * Time in milliseconds the last resolution of the ids took.
+   */
+  private long computeTime;
+
+  public SearchImageCacheData(final String key, final String link, final Collection<String> ids)
+  {
+    this.key = key;
+    this.link = link;
+    this.ids = ids;
+  }
+
+  public boolean isResolved()
+  {
+    return expiryTime > 0 || !CollectionUtils.isEmpty(ids);
+  }
+
+  public boolean isStale(final long now)
+  {
+    return now >= expiryTime;
+  }
+
 }
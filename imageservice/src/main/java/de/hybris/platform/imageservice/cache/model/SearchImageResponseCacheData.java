@@ -0,0 +1,26 @@
+package de.hybris.platform.imageservice.cache.model;
+
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Serialized response body of a similar products lookup.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchImageResponseCacheData implements Serializable
+{
+  private static final long serialVersionUID = 2760372581928830218L;
+  private String key;
+  private byte[] body;
+  private String eTag;
+
+  /**
+   * Time in milliseconds until the product ids of the response are fresh.
+   */
+  private long freshUntil;
+  private long expiryTime;
+}
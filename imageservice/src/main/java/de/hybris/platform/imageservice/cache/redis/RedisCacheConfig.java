@@ -1,6 +1,7 @@
 package de.hybris.platform.imageservice.cache.redis;
 
 import java.time.Duration;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -13,7 +14,6 @@ import org.springframework.cache.support.NoOpCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
@@ -27,6 +27,18 @@ public class RedisCacheConfig
   @Value("${cache.name}")
   private String cacheName;
 
+  @Value("${cache.links.name}")
+  private String linksCacheName;
+
+  @Value("${cache.response.name}")
+  private String responseCacheName;
+
+  @Value("${cache.regions.name}")
+  private String regionsCacheName;
+
+  @Value("${cache.ttl.jitter}")
+  private double ttlJitter;
+
   private Logger LOG = LoggerFactory.getLogger(RedisCacheConfig.class);
 
   private static RedisCacheConfiguration createCacheConfiguration(long timeoutInSeconds)
@@ -80,9 +92,15 @@ public class RedisCacheConfig
           createCacheConfiguration(cacheNameAndTimeout.getValue()));
     }
 
-    return RedisCacheManager.builder(redisConnectionFactory)
-        .cacheDefaults(cacheConfiguration(properties))
-        .withCacheConfiguration(cacheName, cacheConfiguration(properties)).build();
+    cacheConfigurations.put(cacheName, cacheConfiguration(properties));
+    cacheConfigurations.put(linksCacheName, cacheConfiguration(properties));
+    cacheConfigurations.put(responseCacheName, cacheConfiguration(properties));
+    cacheConfigurations.put(regionsCacheName, cacheConfiguration(properties));
+
+    return new SearchImageRedisCacheManager(redisConnectionFactory, cacheConfiguration(properties),
+        cacheConfigurations, ttlJitter,
+        properties.isHashPerUpload() ? Collections.singleton(cacheName) : Collections.emptySet(),
+        properties.isBinaryKeys());
   }
 
   protected boolean isRedisAvailable(RedisConnectionFactory redisConnectionFactory)
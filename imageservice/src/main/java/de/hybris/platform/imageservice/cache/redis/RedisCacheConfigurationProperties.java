@@ -12,5 +12,7 @@ public class RedisCacheConfigurationProperties
   private long timeoutSeconds = 60;
   private int port = 6379;
   private String host = "localhost";
+  private boolean hashPerUpload = false;
+  private boolean binaryKeys = true;
   private Map<String, Long> cacheExpirations = new HashMap<>();
 }
@@ -0,0 +1,296 @@
+package de.hybris.platform.imageservice.cache.redis;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+import de.hybris.platform.imageservice.cache.BatchCache;
+import de.hybris.platform.imageservice.cache.CompactKeyCodec;
+import de.hybris.platform.imageservice.cache.TtlJitter;
+import de.hybris.platform.imageservice.cache.model.SearchImageCacheData;
+
+/**
+ * Redis cache that reads and writes several entries with a single round trip and writes entries
+ * with a jittered time to live.
+ * <p>
+ * With the hash layout, the entries of the bounding boxes of one upload are stored as fields of a
+ * single hash with one time to live, set by the first write of the upload. Later writes of single
+ * bounding boxes keep it, their freshness is tracked by the expiry time of each entry. Keys of the form {@code <upload key>.<index>} are mapped to the
+ * hash of the upload key and the field of the index, other keys are stored as plain values.
+ */
+public class SearchImageRedisCache extends RedisCache implements BatchCache
+{
+  private final RedisConnectionFactory connectionFactory;
+  private final double ttlJitter;
+  private final boolean hashLayout;
+  private final boolean binaryKeys;
+
+  protected SearchImageRedisCache(final String name, final RedisCacheWriter cacheWriter,
+      final RedisCacheConfiguration cacheConfig, final RedisConnectionFactory connectionFactory,
+      final double ttlJitter, final boolean hashLayout, final boolean binaryKeys)
+  {
+    super(name, cacheWriter, cacheConfig);
+    this.connectionFactory = connectionFactory;
+    this.ttlJitter = ttlJitter;
+    this.hashLayout = hashLayout;
+    this.binaryKeys = binaryKeys;
+  }
+
+  /**
+   * Stores compact bounding box keys in their binary form, marked by a leading zero byte after the
+   * key prefix.
+   */
+  @Override
+  protected byte[] serializeCacheKey(final String cacheKey)
+  {
+    final String prefix = getCacheConfiguration().getKeyPrefixFor(getName());
+    if (binaryKeys && cacheKey.startsWith(prefix))
+    {
+      final byte[] compact = CompactKeyCodec.encode(cacheKey.substring(prefix.length()));
+      if (compact != null)
+      {
+        final byte[] rawPrefix = super.serializeCacheKey(prefix);
+        return ByteBuffer.allocate(rawPrefix.length + 1 + compact.length)
+            .put(rawPrefix)
+            .put((byte) 0)
+            .put(compact)
+            .array();
+      }
+    }
+    return super.serializeCacheKey(cacheKey);
+  }
+
+  @Override
+  protected Object lookup(final Object key)
+  {
+    if (!isHashKey(key))
+    {
+      return super.lookup(key);
+    }
+    final byte[] rawValue = execute(connection -> connection.hashCommands()
+        .hGet(getHashKey(key), getHashField(key)));
+    return rawValue != null ? deserializeCacheValue(rawValue) : null;
+  }
+
+  @Override
+  public void put(final Object key, final Object value)
+  {
+    final Object cacheValue = toCacheValue(value);
+    if (!isHashKey(key))
+    {
+      getNativeCache().put(getName(), serializeCacheKey(createCacheKey(key)),
+          serializeCacheValue(cacheValue), getTtl());
+      return;
+    }
+
+    final byte[] hashKey = getHashKey(key);
+    execute(connection -> {
+      connection.openPipeline();
+      connection.hashCommands()
+          .hSet(hashKey, getHashField(key), serializeCacheValue(cacheValue));
+      return expireNewHashes(connection, Collections.singletonList(hashKey), getTtl());
+    });
+  }
+
+  @Override
+  public void evict(final Object key)
+  {
+    if (!isHashKey(key))
+    {
+      super.evict(key);
+      return;
+    }
+    execute(connection -> connection.hashCommands()
+        .hDel(getHashKey(key), getHashField(key)));
+  }
+
+  @Override
+  public Map<Object, Object> getAll(final Collection<?> keys)
+  {
+    final Map<Object, Object> values = new HashMap<>();
+    if (keys.isEmpty())
+    {
+      return values;
+    }
+
+    final List<Object> orderedKeys = new ArrayList<>(keys);
+    final List<?> rawValues = execute(connection -> hashLayout ? getAllPipelined(connection,
+        orderedKeys)
+        : connection.stringCommands()
+            .mGet(orderedKeys.stream()
+                .map(key -> serializeCacheKey(createCacheKey(key)))
+                .toArray(byte[][]::new)));
+
+    for (int i = 0; rawValues != null && i < rawValues.size(); i++)
+    {
+      final Object rawValue = rawValues.get(i);
+      if (rawValue instanceof byte[])
+      {
+        final Object value = fromStoreValue(deserializeCacheValue((byte[]) rawValue));
+        if (value != null)
+        {
+          values.put(orderedKeys.get(i), value);
+        }
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public void putAll(final Map<?, ?> values)
+  {
+    if (values.isEmpty())
+    {
+      return;
+    }
+
+    final Duration ttl = getTtl();
+    execute(connection -> {
+      final Map<String, byte[]> hashKeys = new LinkedHashMap<>();
+      connection.openPipeline();
+      values.forEach((key, value) -> {
+        final byte[] rawValue = serializeCacheValue(toCacheValue(value));
+        if (isHashKey(key))
+        {
+          final byte[] hashKey = getHashKey(key);
+          connection.hashCommands()
+              .hSet(hashKey, getHashField(key), rawValue);
+          hashKeys.putIfAbsent(getUploadKey(key), hashKey);
+        } else
+        {
+          connection.stringCommands()
+              .set(serializeCacheKey(createCacheKey(key)), rawValue, Expiration.from(ttl),
+                  SetOption.UPSERT);
+        }
+      });
+      return expireNewHashes(connection, new ArrayList<>(hashKeys.values()), ttl);
+    });
+  }
+
+  /**
+   * Closes the pipeline of the connection, reading the time to live of the given hashes with it,
+   * and sets the time to live of the hashes that have none yet. The time to live of an upload hash
+   * is only set by its first write, so writing one bounding box doesn't extend the time to live of
+   * the other bounding boxes of the upload or undo the jitter.
+   */
+  protected List<Object> expireNewHashes(final RedisConnection connection,
+      final List<byte[]> hashKeys, final Duration ttl)
+  {
+    for (final byte[] hashKey : hashKeys)
+    {
+      connection.keyCommands()
+          .pTtl(hashKey);
+    }
+    final List<Object> results = connection.closePipeline();
+    if (hashKeys.isEmpty() || results == null || results.size() < hashKeys.size())
+    {
+      return results;
+    }
+
+    final List<Object> ttls = results.subList(results.size() - hashKeys.size(), results.size());
+    final List<byte[]> newHashKeys = new ArrayList<>();
+    for (int i = 0; i < hashKeys.size(); i++)
+    {
+      // -1: the hash exists without a time to live
+      if (ttls.get(i) instanceof Long && ((Long) ttls.get(i)).longValue() == -1)
+      {
+        newHashKeys.add(hashKeys.get(i));
+      }
+    }
+    if (!newHashKeys.isEmpty())
+    {
+      connection.openPipeline();
+      for (final byte[] hashKey : newHashKeys)
+      {
+        connection.keyCommands()
+            .pExpire(hashKey, ttl.toMillis());
+      }
+      connection.closePipeline();
+    }
+    return results;
+  }
+
+  protected List<Object> getAllPipelined(final RedisConnection connection, final List<Object> keys)
+  {
+    connection.openPipeline();
+    for (final Object key : keys)
+    {
+      if (isHashKey(key))
+      {
+        connection.hashCommands()
+            .hGet(getHashKey(key), getHashField(key));
+      } else
+      {
+        connection.stringCommands()
+            .get(serializeCacheKey(createCacheKey(key)));
+      }
+    }
+    return connection.closePipeline();
+  }
+
+  protected Object toCacheValue(final Object value)
+  {
+    final Object cacheValue = preProcessCacheValue(value);
+    if (cacheValue == null)
+    {
+      throw new IllegalArgumentException(
+          "Cache '" + getName() + "' does not allow 'null' values.");
+    }
+    return cacheValue;
+  }
+
+  protected Duration getTtl()
+  {
+    return TtlJitter.jitter(getCacheConfiguration().getTtl(), ttlJitter);
+  }
+
+  protected boolean isHashKey(final Object key)
+  {
+    return hashLayout && key instanceof String
+        && ((String) key).lastIndexOf(SearchImageCacheData.KEY_SEPARATOR) > 0;
+  }
+
+  protected String getUploadKey(final Object key)
+  {
+    final String itemKey = (String) key;
+    return itemKey.substring(0, itemKey.lastIndexOf(SearchImageCacheData.KEY_SEPARATOR));
+  }
+
+  protected byte[] getHashKey(final Object key)
+  {
+    return serializeCacheKey(createCacheKey(getUploadKey(key)));
+  }
+
+  protected byte[] getHashField(final Object key)
+  {
+    final String itemKey = (String) key;
+    return itemKey.substring(itemKey.lastIndexOf(SearchImageCacheData.KEY_SEPARATOR) + 1)
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  private <T> T execute(final Function<RedisConnection, T> callback)
+  {
+    final RedisConnection connection = connectionFactory.getConnection();
+    try
+    {
+      return callback.apply(connection);
+    } finally
+    {
+      connection.close();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package de.hybris.platform.imageservice.cache.redis;
+
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+/**
+ * {@link RedisCacheManager} creating {@link SearchImageRedisCache} instances.
+ */
+public class SearchImageRedisCacheManager extends RedisCacheManager
+{
+  private final RedisCacheWriter cacheWriter;
+  private final RedisCacheConfiguration defaultCacheConfiguration;
+  private final RedisConnectionFactory connectionFactory;
+  private final double ttlJitter;
+  private final Set<String> hashLayoutCacheNames;
+  private final boolean binaryKeys;
+
+  public SearchImageRedisCacheManager(final RedisConnectionFactory connectionFactory,
+      final RedisCacheConfiguration defaultCacheConfiguration,
+      final Map<String, RedisCacheConfiguration> initialCacheConfigurations, final double ttlJitter,
+      final Set<String> hashLayoutCacheNames, final boolean binaryKeys)
+  {
+    this(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory), connectionFactory,
+        defaultCacheConfiguration, initialCacheConfigurations, ttlJitter, hashLayoutCacheNames,
+        binaryKeys);
+  }
+
+  private SearchImageRedisCacheManager(final RedisCacheWriter cacheWriter,
+      final RedisConnectionFactory connectionFactory,
+      final RedisCacheConfiguration defaultCacheConfiguration,
+      final Map<String, RedisCacheConfiguration> initialCacheConfigurations, final double ttlJitter,
+      final Set<String> hashLayoutCacheNames, final boolean binaryKeys)
+  {
+    super(cacheWriter, defaultCacheConfiguration, initialCacheConfigurations);
+    this.cacheWriter = cacheWriter;
+    this.connectionFactory = connectionFactory;
+    this.defaultCacheConfiguration = defaultCacheConfiguration;
+    this.ttlJitter = ttlJitter;
+    this.hashLayoutCacheNames = hashLayoutCacheNames;
+    this.binaryKeys = binaryKeys;
+  }
+
+  @Override
+  protected RedisCache createRedisCache(final String name,
+      final RedisCacheConfiguration cacheConfiguration)
+  {
+    return new SearchImageRedisCache(name, cacheWriter,
+        cacheConfiguration != null ? cacheConfiguration : defaultCacheConfiguration,
+        connectionFactory, ttlJitter, hashLayoutCacheNames.contains(name), binaryKeys);
+  }
+}
@@ -1,5 +1,6 @@
 package de.hybris.platform.imageservice.dto;
 
+import java.io.Serializable;
 import java.util.Collection;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,9 +9,14 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class SearchImageData
+public class SearchImageData implements Serializable
 {
+  private static final long serialVersionUID = 5317480342395498203L;
 
   private Collection<SearchImageItemData> boundingBoxes;
 
+  /**
+   * Content digest of the uploaded image, used to refer to the image in region searches.
+   */
+  private String digest;
 }
@@ -1,5 +1,6 @@
 package de.hybris.platform.imageservice.dto;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -8,8 +9,10 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class SearchImageItemData
+public class SearchImageItemData implements Serializable
 {
+  private static final long serialVersionUID = -2195011583170722846L;
+
   private String id;
   private String label;
   private BigDecimal x1;
@@ -0,0 +1,22 @@
+package de.hybris.platform.imageservice.dto;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Region of a previously uploaded image. The coordinates are relative to the image size, between 0
+ * and 1.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchImageRegionData
+{
+  private String digest;
+  private BigDecimal x1;
+  private BigDecimal y1;
+  private BigDecimal x2;
+  private BigDecimal y2;
+}
@@ -0,0 +1,22 @@
+package de.hybris.platform.imageservice.dto;
+
+import java.util.Collection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Similar product ids of an item together with the time they remain fresh.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarProductIdsData
+{
+  private Collection<String> ids;
+
+  /**
+   * Seconds until the ids are due for refresh, 0 if stale ids are returned.
+   */
+  private long maxAge;
+}
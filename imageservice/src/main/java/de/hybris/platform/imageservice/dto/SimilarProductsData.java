@@ -0,0 +1,15 @@
+package de.hybris.platform.imageservice.dto;
+
+import java.util.Collection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarProductsData
+{
+  private String id;
+  private Collection<String> ids;
+}
@@ -0,0 +1,21 @@
+package de.hybris.platform.imageservice.scheduler;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties(SchedulerConfigurationProperties.class)
+public class SchedulerConfig
+{
+  @Bean
+  public SearchImageSchedulers searchImageSchedulers(SchedulerConfigurationProperties properties,
+      ObjectProvider<MeterRegistry> meterRegistry)
+  {
+    SearchImageSchedulers schedulers = new SearchImageSchedulers(properties);
+    meterRegistry.ifAvailable(schedulers::bindTo);
+    return schedulers;
+  }
+}
@@ -0,0 +1,16 @@
+package de.hybris.platform.imageservice.scheduler;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "scheduler")
+public class SchedulerConfigurationProperties
+{
+  private int blockingThreads = 64;
+  private int blockingQueueSize = 10000;
+  private boolean blockingVirtualThreads = false;
+  private int parallelThreads = Runtime.getRuntime()
+      .availableProcessors();
+  private int parallelQueueSize = 1000;
+}
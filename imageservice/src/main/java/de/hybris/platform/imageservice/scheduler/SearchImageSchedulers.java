@@ -0,0 +1,122 @@
+package de.hybris.platform.imageservice.scheduler;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Schedulers of the image service, so that the Netty event loops only do network I/O. Blocking work
+ * such as cache access runs on the blocking scheduler, CPU heavy work such as parsing on the parallel
+ * scheduler. Both are backed by bounded queues; tasks exceeding the queue are rejected. On JDKs with
+ * virtual threads, the blocking scheduler can run every task on its own virtual thread instead.
+ */
+@Slf4j
+public class SearchImageSchedulers implements DisposableBean
+{
+  private static final String METRIC_QUEUED = "imageservice.scheduler.queued";
+  private static final String METRIC_ACTIVE = "imageservice.scheduler.active";
+  private static final String TAG_SCHEDULER = "scheduler";
+
+  private final ExecutorService blockingExecutor;
+  private final ThreadPoolExecutor parallelExecutor;
+  private final Scheduler blocking;
+  private final Scheduler parallel;
+
+  public SearchImageSchedulers(final SchedulerConfigurationProperties properties)
+  {
+    final ExecutorService virtualThreadExecutor =
+        properties.isBlockingVirtualThreads() ? createVirtualThreadExecutor() : null;
+    blockingExecutor = virtualThreadExecutor != null ? virtualThreadExecutor
+        : createExecutor("imageservice-blocking-", properties.getBlockingThreads(),
+            properties.getBlockingQueueSize());
+    parallelExecutor = createExecutor("imageservice-parallel-", properties.getParallelThreads(),
+        properties.getParallelQueueSize());
+
+    blocking = Schedulers.fromExecutorService(blockingExecutor, "imageservice-blocking");
+    parallel = Schedulers.fromExecutorService(parallelExecutor, "imageservice-parallel");
+  }
+
+  /**
+   * Scheduler for blocking I/O, e.g. cache access.
+   */
+  public Scheduler blocking()
+  {
+    return blocking;
+  }
+
+  /**
+   * Scheduler for CPU heavy work, e.g. parsing and image processing.
+   */
+  public Scheduler parallel()
+  {
+    return parallel;
+  }
+
+  /**
+   * Registers gauges of the queued and active tasks of the schedulers.
+   */
+  public void bindTo(final MeterRegistry registry)
+  {
+    if (blockingExecutor instanceof ThreadPoolExecutor)
+    {
+      bindTo(registry, "blocking", (ThreadPoolExecutor) blockingExecutor);
+    }
+    bindTo(registry, "parallel", parallelExecutor);
+  }
+
+  protected void bindTo(final MeterRegistry registry, final String name,
+      final ThreadPoolExecutor executor)
+  {
+    Gauge.builder(METRIC_QUEUED, executor, e -> e.getQueue()
+        .size())
+        .tag(TAG_SCHEDULER, name)
+        .description("Tasks waiting for a thread")
+        .register(registry);
+    Gauge.builder(METRIC_ACTIVE, executor, ThreadPoolExecutor::getActiveCount)
+        .tag(TAG_SCHEDULER, name)
+        .description("Tasks running")
+        .register(registry);
+  }
+
+  protected ThreadPoolExecutor createExecutor(final String threadNamePrefix, final int threads,
+      final int queueSize)
+  {
+    final CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+    threadFactory.setDaemon(true);
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<>(queueSize), threadFactory);
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  protected ExecutorService createVirtualThreadExecutor()
+  {
+    try
+    {
+      final Method factory = java.util.concurrent.Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor");
+      log.info("Blocking scheduler uses virtual threads");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e)
+    {
+      log.warn("Virtual threads are not supported by this JDK, using platform threads");
+      return null;
+    }
+  }
+
+  @Override
+  public void destroy()
+  {
+    blocking.dispose();
+    parallel.dispose();
+  }
+}
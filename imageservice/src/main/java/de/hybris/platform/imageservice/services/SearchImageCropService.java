@@ -0,0 +1,16 @@
+package de.hybris.platform.imageservice.services;
+
+import java.nio.ByteBuffer;
+import de.hybris.platform.imageservice.dto.SearchImageRegionData;
+
+public interface SearchImageCropService
+{
+  /**
+   * Returns the given region of an image.
+   *
+   * @param image - encoded image
+   * @param region - region with coordinates relative to the image size
+   * @return encoded image of the region
+   */
+  public ByteBuffer crop(final byte[] image, final SearchImageRegionData region);
+}
@@ -0,0 +1,17 @@
+package de.hybris.platform.imageservice.services;
+
+import de.hybris.platform.imageservice.dto.SearchImageData;
+
+/**
+ * Strategy generating the keys under which the bounding boxes of an upload are cached.
+ */
+public interface SearchImageKeyGenerator
+{
+  /**
+   * Returns the key of an upload. The keys of the bounding boxes are derived from it.
+   *
+   * @param searchImageData - detected bounding boxes, with the offers links as ids
+   * @return upload key
+   */
+  public String generateUploadKey(final SearchImageData searchImageData);
+}
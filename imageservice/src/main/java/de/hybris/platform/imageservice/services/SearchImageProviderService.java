@@ -10,7 +10,7 @@ public interface SearchImageProviderService
   /**
    * Returns {@link SearchImageData} information on items detected on provided image.
    *
-   * @param imageBuffer - uploaded image
+   * @param imageBuffer - uploaded image, the bytes between position and limit of the buffer
    * @return bounding boxes and labels for the detected items
    */
   public Mono<SearchImageData> detectObjects(final ByteBuffer imageBuffer);
@@ -2,7 +2,10 @@ package de.hybris.platform.imageservice.services;
 
 import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.Map;
 import de.hybris.platform.imageservice.dto.SearchImageData;
+import de.hybris.platform.imageservice.dto.SearchImageRegionData;
+import de.hybris.platform.imageservice.dto.SimilarProductIdsData;
 import reactor.core.publisher.Mono;
 
 public interface SearchImageService
@@ -10,11 +13,20 @@ public interface SearchImageService
   /**
    * Returns {@link SearchImageData} information on items detected on provided image.
    *
-   * @param imageBuffer - uploaded image
+   * @param imageBuffer - uploaded image, the bytes between position and limit of the buffer
    * @return bounding boxes and labels for the detected items
    */
   public Mono<SearchImageData> getSearchImageDataFromImage(final ByteBuffer imageBuffer);
 
+  /**
+   * Returns {@link SearchImageData} information on items detected on a region of a previously
+   * uploaded image. The coordinates of the bounding boxes are relative to the whole image.
+   *
+   * @param region - digest of the uploaded image and region with coordinates between 0 and 1
+   * @return bounding boxes and labels for the detected items
+   */
+  public Mono<SearchImageData> getSearchImageDataFromRegion(final SearchImageRegionData region);
+
   /**
    * Returns list of similar products id for the provided item.
    *
@@ -23,4 +35,32 @@ public interface SearchImageService
    */
   public Mono<Collection<String>> getSimilarProductIds(final String itemId);
 
+  /**
+   * Returns list of similar products id for the provided item together with the time the ids remain
+   * fresh.
+   *
+   * @param itemId - id of item on previously uploaded image
+   * @return similar products id and their remaining freshness
+   */
+  public Mono<SimilarProductIdsData> getSimilarProductIdsData(final String itemId);
+
+  /**
+   * Returns list of similar products id for the provided item if fresh ids are cached, without
+   * calling the search image provider or refreshing the ids.
+   *
+   * @param itemId - id of item on previously uploaded image
+   * @return cached similar products id and their remaining freshness, empty if there are no fresh
+   *         ids
+   */
+  public Mono<SimilarProductIdsData> getFreshSimilarProductIdsData(final String itemId);
+
+  /**
+   * Returns lists of similar products id for the provided items. Unknown items are not present in
+   * the result.
+   *
+   * @param itemIds - ids of items on previously uploaded images
+   * @return similar products id by item id
+   */
+  public Mono<Map<String, Collection<String>>> getSimilarProductIds(final Collection<String> itemIds);
+
 }
@@ -0,0 +1,44 @@
+package de.hybris.platform.imageservice.services.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import de.hybris.platform.imageservice.cache.CompactKeyCodec;
+import de.hybris.platform.imageservice.dto.SearchImageData;
+import de.hybris.platform.imageservice.dto.SearchImageItemData;
+import de.hybris.platform.imageservice.exceptions.SearchImageException;
+import de.hybris.platform.imageservice.services.SearchImageKeyGenerator;
+
+/**
+ * Derives upload keys from a SHA-256 hash of the offers links of the detected bounding boxes. Uploads
+ * of the same image share their cache entries. The keys are encoded in 22 URL safe characters.
+ */
+@Component
+@ConditionalOnProperty(name = "key.generator", havingValue = "contentHash")
+public class ContentHashSearchImageKeyGenerator implements SearchImageKeyGenerator
+{
+  @Override
+  public String generateUploadKey(final SearchImageData searchImageData)
+  {
+    try
+    {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      for (final SearchImageItemData item : searchImageData.getBoundingBoxes())
+      {
+        if (item.getId() != null)
+        {
+          digest.update(item.getId()
+              .getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) '\n');
+      }
+      return CompactKeyCodec.toString(Arrays.copyOf(digest.digest(), CompactKeyCodec.KEY_BYTES));
+    } catch (NoSuchAlgorithmException e)
+    {
+      throw new SearchImageException(e);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package de.hybris.platform.imageservice.services.impl;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import javax.imageio.ImageIO;
+import org.springframework.stereotype.Service;
+import de.hybris.platform.imageservice.dto.SearchImageRegionData;
+import de.hybris.platform.imageservice.exceptions.SearchImageException;
+import de.hybris.platform.imageservice.services.SearchImageCropService;
+
+/**
+ * Implementation of {@link SearchImageCropService} using ImageIO. Regions are encoded as JPEG.
+ */
+@Service
+public class DefaultSearchImageCropService implements SearchImageCropService
+{
+  private static final String FORMAT = "jpg";
+
+  @Override
+  public ByteBuffer crop(final byte[] image, final SearchImageRegionData region)
+  {
+    try
+    {
+      final BufferedImage source = ImageIO.read(new ByteArrayInputStream(image));
+      if (source == null)
+      {
+        throw new SearchImageException("Image format is not supported");
+      }
+
+      final int x = Math.min(source.getWidth() - 1, toPixel(region.getX1(), source.getWidth()));
+      final int y = Math.min(source.getHeight() - 1, toPixel(region.getY1(), source.getHeight()));
+      final int width = Math.max(1, toPixel(region.getX2(), source.getWidth()) - x);
+      final int height = Math.max(1, toPixel(region.getY2(), source.getHeight()) - y);
+
+      // JPEG does not support transparency
+      final BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+      final Graphics2D graphics = target.createGraphics();
+      graphics.drawImage(source.getSubimage(x, y, width, height), 0, 0, null);
+      graphics.dispose();
+
+      final ByteArrayOutputStream output = new ByteArrayOutputStream();
+      ImageIO.write(target, FORMAT, output);
+      final byte[] bytes = output.toByteArray();
+      return ByteBuffer.wrap(bytes);
+    } catch (IOException e)
+    {
+      throw new SearchImageException(e);
+    }
+  }
+
+  private int toPixel(final BigDecimal coordinate, final int size)
+  {
+    return Math.min(size, Math.max(0, (int) Math.round(coordinate.doubleValue() * size)));
+  }
+}
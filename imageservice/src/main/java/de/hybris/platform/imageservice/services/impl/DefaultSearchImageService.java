@@ -1,38 +1,126 @@
 package de.hybris.platform.imageservice.services.impl;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import de.hybris.platform.imageservice.cache.BatchCache;
+import de.hybris.platform.imageservice.cache.TtlJitter;
 import de.hybris.platform.imageservice.cache.model.SearchImageCacheData;
 import de.hybris.platform.imageservice.dto.SearchImageData;
+import de.hybris.platform.imageservice.dto.SearchImageItemData;
+import de.hybris.platform.imageservice.dto.SearchImageRegionData;
+import de.hybris.platform.imageservice.dto.SimilarProductIdsData;
 import de.hybris.platform.imageservice.exceptions.SearchImageException;
+import de.hybris.platform.imageservice.scheduler.SearchImageSchedulers;
+import de.hybris.platform.imageservice.services.SearchImageCropService;
+import de.hybris.platform.imageservice.services.SearchImageKeyGenerator;
 import de.hybris.platform.imageservice.services.SearchImageProviderService;
 import de.hybris.platform.imageservice.services.SearchImageService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
 
 /**
  * Default implementation of {@link SearchImageService}. Before calling search image provider, the
  * service will first try to get data from cache.
  */
+@Slf4j
 @Service
 public class DefaultSearchImageService implements SearchImageService
 {
   @Value("${cache.name}")
   private String cacheName;
 
+  @Value("${cache.links.name}")
+  private String linksCacheName;
+
+  @Value("${cache.response.enabled}")
+  private boolean responseCacheEnabled;
+
+  @Value("${cache.response.name}")
+  private String responseCacheName;
+
+  @Value("${cache.regions.name}")
+  private String regionsCacheName;
+
+  @Value("${cache.region.quantization.steps}")
+  private int regionQuantizationSteps;
+
+  @Value("${cache.images.name}")
+  private String imagesCacheName;
+
+  @Value("${cache.images.max.kb}")
+  private long imagesMaxKb;
+
+  @Value("${similar.batch.max.size}")
+  private int maxBatchSize;
+
+  @Value("${similar.batch.concurrency}")
+  private int batchConcurrency;
+
+  @Value("${cache.freshness.seconds}")
+  private long freshnessSeconds;
+
+  @Value("${cache.negative.seconds}")
+  private long negativeSeconds;
+
+  @Value("${cache.error.seconds}")
+  private long errorSeconds;
+
+  @Value("${cache.ttl.jitter}")
+  private double ttlJitter;
+
+  @Value("${cache.early.refresh.beta}")
+  private double earlyRefreshBeta;
+
   @Autowired
   private CacheManager searchImageCacheManager;
 
+  /**
+   * Local cache manager of the uploaded images, which are not sent to the shared second level cache.
+   */
+  @Autowired
+  private CacheManager jCacheCacheManager;
+
   @Autowired
   private SearchImageProviderService searchImageProviderService;
 
+  @Autowired
+  private SearchImageKeyGenerator searchImageKeyGenerator;
+
+  @Autowired
+  private SearchImageSchedulers searchImageSchedulers;
+
+  @Autowired
+  private SearchImageCropService searchImageCropService;
+
+  private final Map<String, Mono<SimilarProductIdsData>> refreshes = new ConcurrentHashMap<>();
+
   @Override
   public Mono<SearchImageData> getSearchImageDataFromImage(final ByteBuffer imageBuffer)
   {
@@ -41,45 +129,347 @@ public class DefaultSearchImageService implements SearchImageService
       return Mono.error(new SearchImageException("Item buffer must not be empty"));
     }
 
-    return searchImageProviderService.detectObjects(imageBuffer)
+    final byte[] image = new byte[imageBuffer.remaining()];
+    imageBuffer.duplicate()
+        .get(image);
+    return detectObjects(imageBuffer)
         .filter(detectedObject -> !CollectionUtils.isEmpty(detectedObject.getBoundingBoxes()))
         .map(detectedObject -> {
-          detectedObject.getBoundingBoxes()
-              .stream()
-              .forEach(item -> {
-                final String key = UUID.randomUUID()
-                    .toString();
-                putSearchImageCacheData(key, item.getId());
-                item.setId(key);
-              });
+          if (image.length <= imagesMaxKb * 1024)
+          {
+            final String digest = createDigest(image);
+            putImageAsync(digest, image);
+            detectedObject.setDigest(digest);
+          }
           return detectedObject;
         });
   }
 
+  @Override
+  public Mono<SearchImageData> getSearchImageDataFromRegion(final SearchImageRegionData region)
+  {
+    if (region == null || StringUtils.isEmpty(region.getDigest()) || !isValidRegion(region))
+    {
+      return Mono.error(new SearchImageException(
+          "Region must refer to an uploaded image and have coordinates between 0 and 1"));
+    }
+
+    final SearchImageRegionData crop = quantize(region);
+    final String regionKey = crop.getDigest() + ":" + crop.getX1() + "," + crop.getY1() + ","
+        + crop.getX2() + "," + crop.getY2();
+
+    return Mono.fromCallable(() -> getRegionCacheData(regionKey))
+        .subscribeOn(searchImageSchedulers.blocking())
+        .switchIfEmpty(Mono.defer(() -> Mono.fromCallable(() -> getImage(crop.getDigest()))
+            .subscribeOn(searchImageSchedulers.blocking())
+            .switchIfEmpty(Mono.error(
+                () -> new SearchImageException("Image " + crop.getDigest() + " is not available")))
+            .publishOn(searchImageSchedulers.parallel())
+            .map(image -> searchImageCropService.crop(image, crop))
+            .flatMap(this::detectObjects)
+            .map(detectedObject -> {
+              detectedObject.setDigest(crop.getDigest());
+              toImageCoordinates(detectedObject, crop);
+              putRegionCacheData(regionKey, detectedObject);
+              return detectedObject;
+            })));
+  }
+
+  /**
+   * Detects the bounding boxes on the given image and caches their offers links under new keys.
+   */
+  protected Mono<SearchImageData> detectObjects(final ByteBuffer imageBuffer)
+  {
+    return searchImageProviderService.detectObjects(imageBuffer)
+        .publishOn(searchImageSchedulers.blocking())
+        .map(detectedObject -> {
+          if (CollectionUtils.isEmpty(detectedObject.getBoundingBoxes()))
+          {
+            return detectedObject;
+          }
+          final String uploadKey = searchImageKeyGenerator.generateUploadKey(detectedObject);
+          final Map<String, String> offers = new LinkedHashMap<>();
+          int index = 0;
+          for (final SearchImageItemData item : detectedObject.getBoundingBoxes())
+          {
+            final String key = uploadKey + SearchImageCacheData.KEY_SEPARATOR + index++;
+            offers.put(key, item.getId());
+            item.setId(key);
+          }
+          putSearchImageCacheData(offers);
+          return detectedObject;
+        });
+  }
+
+  protected boolean isValidRegion(final SearchImageRegionData region)
+  {
+    return isValidRange(region.getX1(), region.getX2())
+        && isValidRange(region.getY1(), region.getY2());
+  }
+
+  private boolean isValidRange(final BigDecimal from, final BigDecimal to)
+  {
+    return from != null && to != null && from.signum() >= 0 && from.compareTo(to) < 0
+        && to.compareTo(BigDecimal.ONE) <= 0;
+  }
+
+  /**
+   * Snaps the region to a grid of cache.region.quantization.steps, so that nearly identical regions
+   * share their cache entry. The region grows to the enclosing grid cells.
+   */
+  protected SearchImageRegionData quantize(final SearchImageRegionData region)
+  {
+    final BigDecimal steps = BigDecimal.valueOf(regionQuantizationSteps);
+    return new SearchImageRegionData(region.getDigest(),
+        quantize(region.getX1(), steps, RoundingMode.FLOOR),
+        quantize(region.getY1(), steps, RoundingMode.FLOOR),
+        quantize(region.getX2(), steps, RoundingMode.CEILING),
+        quantize(region.getY2(), steps, RoundingMode.CEILING));
+  }
+
+  private BigDecimal quantize(final BigDecimal value, final BigDecimal steps,
+      final RoundingMode roundingMode)
+  {
+    return value.multiply(steps)
+        .setScale(0, roundingMode)
+        .divide(steps, 6, RoundingMode.HALF_UP)
+        .stripTrailingZeros();
+  }
+
+  /**
+   * Converts the coordinates of bounding boxes detected on a region to coordinates on the whole
+   * image.
+   */
+  protected void toImageCoordinates(final SearchImageData detectedObject,
+      final SearchImageRegionData region)
+  {
+    if (detectedObject.getBoundingBoxes() == null)
+    {
+      detectedObject.setBoundingBoxes(Collections.emptyList());
+      return;
+    }
+    final BigDecimal width = region.getX2()
+        .subtract(region.getX1());
+    final BigDecimal height = region.getY2()
+        .subtract(region.getY1());
+    for (final SearchImageItemData item : detectedObject.getBoundingBoxes())
+    {
+      item.setX1(toImageCoordinate(item.getX1(), region.getX1(), width));
+      item.setY1(toImageCoordinate(item.getY1(), region.getY1(), height));
+      item.setX2(toImageCoordinate(item.getX2(), region.getX1(), width));
+      item.setY2(toImageCoordinate(item.getY2(), region.getY1(), height));
+    }
+  }
+
+  private BigDecimal toImageCoordinate(final BigDecimal value, final BigDecimal offset,
+      final BigDecimal size)
+  {
+    return value != null ? offset.add(value.multiply(size)) : null;
+  }
+
+  protected String createDigest(final byte[] image)
+  {
+    try
+    {
+      return Base64.getUrlEncoder()
+          .withoutPadding()
+          .encodeToString(MessageDigest.getInstance("SHA-256")
+              .digest(image));
+    } catch (NoSuchAlgorithmException e)
+    {
+      throw new SearchImageException(e);
+    }
+  }
+
+  protected byte[] getImage(final String digest)
+  {
+    return jCacheCacheManager.getCache(imagesCacheName)
+        .get(digest, byte[].class);
+  }
+
+  protected void putImage(final String digest, final byte[] image)
+  {
+    jCacheCacheManager.getCache(imagesCacheName)
+        .put(digest, image);
+  }
+
+  /**
+   * Stores the uploaded image without delaying the upload response.
+   */
+  protected void putImageAsync(final String digest, final byte[] image)
+  {
+    Mono.fromRunnable(() -> putImage(digest, image))
+        .subscribeOn(searchImageSchedulers.blocking())
+        .subscribe(null, e -> log.debug("Image {} could not be cached", digest, e));
+  }
+
+  protected SearchImageData getRegionCacheData(final String regionKey)
+  {
+    return searchImageCacheManager.getCache(regionsCacheName)
+        .get(regionKey, SearchImageData.class);
+  }
+
+  protected void putRegionCacheData(final String regionKey, final SearchImageData searchImageData)
+  {
+    searchImageCacheManager.getCache(regionsCacheName)
+        .put(regionKey, searchImageData);
+  }
+
   @Override
   public Mono<Collection<String>> getSimilarProductIds(final String itemId)
+  {
+    return getSimilarProductIdsData(itemId).map(SimilarProductIdsData::getIds);
+  }
+
+  @Override
+  public Mono<SimilarProductIdsData> getSimilarProductIdsData(final String itemId)
   {
     if (StringUtils.isEmpty(itemId))
     {
       return Mono.error(new SearchImageException("Item id must not be empty"));
     }
-    SearchImageCacheData cachedData = getSearchImageCacheData(itemId);
-    if (cachedData != null)
+    return Mono.fromCallable(() -> getSearchImageCacheData(itemId))
+        .subscribeOn(searchImageSchedulers.blocking())
+        .flatMap(this::resolveSimilarProductIdsData);
+  }
+
+  @Override
+  public Mono<SimilarProductIdsData> getFreshSimilarProductIdsData(final String itemId)
+  {
+    if (StringUtils.isEmpty(itemId))
     {
-      if (!CollectionUtils.isEmpty(cachedData.getIds()))
-      {
-        return Mono.just(cachedData.getIds());
-      } else if (!StringUtils.isEmpty(cachedData.getLink()))
+      return Mono.empty();
+    }
+    return Mono.fromCallable(() -> getSearchImageCacheData(itemId))
+        .subscribeOn(searchImageSchedulers.blocking())
+        .filter(cachedData -> cachedData.isResolved() && !cachedData.isFailed()
+            && !cachedData.isStale(System.currentTimeMillis()))
+        .map(cachedData -> createSimilarProductIdsData(cachedData, System.currentTimeMillis()));
+  }
+
+  @Override
+  public Mono<Map<String, Collection<String>>> getSimilarProductIds(final Collection<String> itemIds)
+  {
+    if (CollectionUtils.isEmpty(itemIds))
+    {
+      return Mono.error(new SearchImageException("Item ids must not be empty"));
+    }
+    if (itemIds.size() > maxBatchSize)
+    {
+      return Mono.error(new SearchImageException(
+          "Number of item ids must not exceed " + maxBatchSize));
+    }
+
+    return Mono.fromCallable(() -> getSearchImageCacheData(itemIds))
+        .subscribeOn(searchImageSchedulers.blocking())
+        .flatMapMany(cachedData -> Flux.fromIterable(cachedData.entrySet()))
+        .flatMap(cachedData -> resolveSimilarProductIds(cachedData.getValue())
+            .map(productIds -> Tuples.of(cachedData.getKey(), productIds)), batchConcurrency)
+        .collectMap(Tuple2::getT1, Tuple2::getT2);
+  }
+
+  /**
+   * Resolves the similar product ids of a cache entry. Fresh ids are returned from the cache. Stale
+   * ids are returned immediately while they are refreshed in the background, and are kept as
+   * fallback if the refresh fails. Empty and failed results are cached for a shorter time. Ids close
+   * to their expiration are refreshed early with a probability growing towards the expiration.
+   */
+  protected Mono<Collection<String>> resolveSimilarProductIds(final SearchImageCacheData cachedData)
+  {
+    return resolveSimilarProductIdsData(cachedData).map(SimilarProductIdsData::getIds);
+  }
+
+  /**
+   * Resolves the similar product ids of a cache entry like
+   * {@link #resolveSimilarProductIds(SearchImageCacheData)}, together with the seconds they remain
+   * fresh. Stale ids and ids kept after a failed resolution are returned with no freshness left.
+   */
+  protected Mono<SimilarProductIdsData> resolveSimilarProductIdsData(
+      final SearchImageCacheData cachedData)
+  {
+    final boolean hasLink = !StringUtils.isEmpty(cachedData.getLink());
+    final boolean hasIds = !CollectionUtils.isEmpty(cachedData.getIds());
+
+    if (!cachedData.isResolved())
+    {
+      return hasLink ? refresh(cachedData) : Mono.empty();
+    }
+
+    final long now = System.currentTimeMillis();
+    if (hasLink && cachedData.isStale(now) && !hasIds)
+    {
+      return refresh(cachedData);
+    }
+    if (hasLink && hasIds && TtlJitter.shouldRefreshEarly(now, cachedData.getExpiryTime(),
+        cachedData.getComputeTime(), earlyRefreshBeta))
+    {
+      refresh(cachedData).subscribe(productIds -> log.debug("Refreshed item {}", cachedData.getKey()),
+          e -> log.debug("Refresh of item {} failed", cachedData.getKey(), e));
+      return Mono.just(createSimilarProductIdsData(cachedData, now));
+    }
+
+    if (cachedData.isFailed() && !hasIds)
+    {
+      return Mono.error(new SearchImageException(
+          "Similar products of item " + cachedData.getKey() + " are temporarily unavailable"));
+    }
+    return Mono.just(createSimilarProductIdsData(cachedData, now));
+  }
+
+  protected SimilarProductIdsData createSimilarProductIdsData(final SearchImageCacheData cachedData,
+      final long now)
+  {
+    final Collection<String> ids =
+        CollectionUtils.isEmpty(cachedData.getIds()) ? Collections.emptyList() : cachedData.getIds();
+    return new SimilarProductIdsData(ids,
+        cachedData.isFailed() ? 0 : getRemainingSeconds(cachedData.getExpiryTime(), now));
+  }
+
+  protected long getRemainingSeconds(final long expiryTime, final long now)
+  {
+    return Math.max(0, TimeUnit.MILLISECONDS.toSeconds(expiryTime - now));
+  }
+
+  /**
+   * Gets the similar product ids from the links cache or from the search image provider and updates
+   * the cache entry. Concurrent refreshes of the same entry share one provider call. If the provider
+   * call fails, the previous ids are returned as stale ids if there are any.
+   */
+  protected Mono<SimilarProductIdsData> refresh(final SearchImageCacheData cachedData)
+  {
+    final String key = cachedData.getKey();
+    return refreshes.computeIfAbsent(key, k -> Mono.defer(() -> {
+      final String link = normalizeLink(cachedData.getLink());
+      final SearchImageCacheData linkData = getLinkCacheData(link);
+      if (linkData != null && linkData.isResolved() && !linkData.isFailed()
+          && !linkData.isStale(System.currentTimeMillis()))
       {
-        return searchImageProviderService.getSimilarProducts(cachedData.getLink())
-            .map(productIds -> {
-              updateSearchImageData(cachedData.getKey(), productIds);
-              return productIds;
-            });
+        updateSearchImageData(key, linkData);
+        return Mono.just(createSimilarProductIdsData(linkData, System.currentTimeMillis()));
       }
-    }
 
-    return Mono.empty();
+      final long start = System.currentTimeMillis();
+      return searchImageProviderService.getSimilarProducts(cachedData.getLink())
+          .publishOn(searchImageSchedulers.blocking())
+          .map(productIds -> {
+            final SearchImageCacheData resolvedData =
+                updateSearchImageData(key, productIds, System.currentTimeMillis() - start);
+            if (resolvedData == null)
+            {
+              // the entry was evicted meanwhile, the ids are fresh for the full time to live
+              return new SimilarProductIdsData(productIds,
+                  CollectionUtils.isEmpty(productIds) ? negativeSeconds : freshnessSeconds);
+            }
+            putLinkCacheData(link, resolvedData);
+            return createSimilarProductIdsData(resolvedData, System.currentTimeMillis());
+          });
+    })
+        .subscribeOn(searchImageSchedulers.blocking())
+        .doOnError(e -> markSearchImageDataFailed(key))
+        .doFinally(signal -> refreshes.remove(key))
+        .cache())
+        .onErrorResume(e -> CollectionUtils.isEmpty(cachedData.getIds()) ? Mono.error(e)
+            : Mono.just(new SimilarProductIdsData(cachedData.getIds(), 0)));
   }
 
   protected SearchImageCacheData getSearchImageCacheData(final String key)
@@ -88,31 +478,168 @@ public class DefaultSearchImageService implements SearchImageService
         .get(key, SearchImageCacheData.class);
   }
 
+  protected Map<String, SearchImageCacheData> getSearchImageCacheData(final Collection<String> keys)
+  {
+    final Map<String, SearchImageCacheData> cachedData = new LinkedHashMap<>();
+    final Cache cache = searchImageCacheManager.getCache(cacheName);
+    if (cache instanceof BatchCache)
+    {
+      ((BatchCache) cache).getAll(new LinkedHashSet<>(keys))
+          .forEach((key, value) -> {
+            if (value instanceof SearchImageCacheData)
+            {
+              cachedData.put((String) key, (SearchImageCacheData) value);
+            }
+          });
+    } else
+    {
+      keys.forEach(key -> {
+        SearchImageCacheData value = cache.get(key, SearchImageCacheData.class);
+        if (value != null)
+        {
+          cachedData.put(key, value);
+        }
+      });
+    }
+    return cachedData;
+  }
+
   protected void delete(String key)
   {
     searchImageCacheManager.getCache(cacheName)
         .evict(key);
   }
 
-  protected void putSearchImageCacheData(final String key, final String offers)
+  /**
+   * Stores the offers links of the bounding boxes of one upload with a single cache operation.
+   *
+   * @param offers - offers links by bounding box key
+   */
+  protected void putSearchImageCacheData(final Map<String, String> offers)
   {
-    if (!StringUtils.isEmpty(offers))
+    final Map<String, SearchImageCacheData> cachedData = new LinkedHashMap<>();
+    offers.forEach((key, link) -> {
+      if (!StringUtils.isEmpty(link))
+      {
+        cachedData.put(key, new SearchImageCacheData(key, link, null));
+      }
+    });
+    if (cachedData.isEmpty())
+    {
+      return;
+    }
+
+    final Cache cache = searchImageCacheManager.getCache(cacheName);
+    if (cache instanceof BatchCache)
+    {
+      ((BatchCache) cache).putAll(cachedData);
+    } else
     {
-      SearchImageCacheData cachedData = new SearchImageCacheData();
-      cachedData.setKey(key);
-      cachedData.setLink(offers);
+      cachedData.forEach(cache::put);
+    }
+  }
+
+  protected SearchImageCacheData updateSearchImageData(final String key, final List<String> ids,
+      final long computeTime)
+  {
+    SearchImageCacheData cachedData = getSearchImageCacheData(key);
+    if (cachedData != null)
+    {
+      final long ttl = CollectionUtils.isEmpty(ids) ? negativeSeconds : freshnessSeconds;
+      cachedData.setIds(ids);
+      cachedData.setFailed(false);
+      cachedData.setComputeTime(computeTime);
+      cachedData.setExpiryTime(System.currentTimeMillis()
+          + TtlJitter.jitter(TimeUnit.SECONDS.toMillis(ttl), ttlJitter));
+
       searchImageCacheManager.getCache(cacheName)
           .put(key, cachedData);
+      evictResponse(key);
     }
+    return cachedData;
   }
 
-  protected SearchImageCacheData updateSearchImageData(final String key, final List<String> ids)
+  protected SearchImageCacheData updateSearchImageData(final String key,
+      final SearchImageCacheData resolvedData)
   {
     SearchImageCacheData cachedData = getSearchImageCacheData(key);
     if (cachedData != null)
     {
-      delete(key);
-      cachedData.setIds(ids);
+      cachedData.setIds(resolvedData.getIds());
+      cachedData.setFailed(false);
+      cachedData.setComputeTime(resolvedData.getComputeTime());
+      cachedData.setExpiryTime(resolvedData.getExpiryTime());
+
+      searchImageCacheManager.getCache(cacheName)
+          .put(key, cachedData);
+      evictResponse(key);
+    }
+    return cachedData;
+  }
+
+  /**
+   * Evicts the cached response body of the given item, which no longer matches the updated ids.
+   */
+  protected void evictResponse(final String key)
+  {
+    if (responseCacheEnabled)
+    {
+      searchImageCacheManager.getCache(responseCacheName)
+          .evict(key);
+    }
+  }
+
+  protected SearchImageCacheData getLinkCacheData(final String link)
+  {
+    return searchImageCacheManager.getCache(linksCacheName)
+        .get(link, SearchImageCacheData.class);
+  }
+
+  protected void putLinkCacheData(final String link, final SearchImageCacheData resolvedData)
+  {
+    SearchImageCacheData linkData = new SearchImageCacheData(link, link, resolvedData.getIds());
+    linkData.setComputeTime(resolvedData.getComputeTime());
+    linkData.setExpiryTime(resolvedData.getExpiryTime());
+    searchImageCacheManager.getCache(linksCacheName)
+        .put(link, linkData);
+  }
+
+  /**
+   * Normalizes an offers link, so that links differing only in the case of scheme and host, in the
+   * order of the query parameters or in the fragment share one links cache entry.
+   */
+  protected String normalizeLink(final String link)
+  {
+    try
+    {
+      final UriComponents uri = UriComponentsBuilder.fromUriString(link)
+          .build();
+      final UriComponentsBuilder normalized = UriComponentsBuilder.newInstance()
+          .scheme(uri.getScheme() != null ? uri.getScheme()
+              .toLowerCase(Locale.ROOT) : null)
+          .host(uri.getHost() != null ? uri.getHost()
+              .toLowerCase(Locale.ROOT) : null)
+          .port(uri.getPort())
+          .path(uri.getPath());
+      new TreeMap<>(uri.getQueryParams()).forEach((name, values) -> values.stream()
+          .sorted(Comparator.nullsFirst(Comparator.naturalOrder()))
+          .forEach(value -> normalized.queryParam(name, value)));
+      return normalized.build()
+          .toUriString();
+    } catch (IllegalArgumentException e)
+    {
+      return link;
+    }
+  }
+
+  protected SearchImageCacheData markSearchImageDataFailed(final String key)
+  {
+    SearchImageCacheData cachedData = getSearchImageCacheData(key);
+    if (cachedData != null)
+    {
+      cachedData.setFailed(true);
+      cachedData.setExpiryTime(
+          System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(errorSeconds));
 
       searchImageCacheManager.getCache(cacheName)
           .put(key, cachedData);
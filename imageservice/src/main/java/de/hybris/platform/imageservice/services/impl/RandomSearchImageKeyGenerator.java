@@ -0,0 +1,22 @@
+package de.hybris.platform.imageservice.services.impl;
+
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import de.hybris.platform.imageservice.dto.SearchImageData;
+import de.hybris.platform.imageservice.services.SearchImageKeyGenerator;
+
+/**
+ * Generates random UUIDs as upload keys.
+ */
+@Component
+@ConditionalOnProperty(name = "key.generator", havingValue = "random")
+public class RandomSearchImageKeyGenerator implements SearchImageKeyGenerator
+{
+  @Override
+  public String generateUploadKey(final SearchImageData searchImageData)
+  {
+    return UUID.randomUUID()
+        .toString();
+  }
+}
@@ -0,0 +1,29 @@
+package de.hybris.platform.imageservice.services.impl;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import de.hybris.platform.imageservice.cache.CompactKeyCodec;
+import de.hybris.platform.imageservice.dto.SearchImageData;
+import de.hybris.platform.imageservice.services.SearchImageKeyGenerator;
+
+/**
+ * Generates time ordered 128 bit upload keys: 48 bits of the current time in milliseconds followed
+ * by 80 random bits from the thread local generator, so that key generation does not contend on a
+ * shared {@link java.security.SecureRandom}. The keys are encoded in 22 URL safe characters.
+ */
+@Component
+@ConditionalOnProperty(name = "key.generator", havingValue = "timeOrdered", matchIfMissing = true)
+public class TimeOrderedSearchImageKeyGenerator implements SearchImageKeyGenerator
+{
+  @Override
+  public String generateUploadKey(final SearchImageData searchImageData)
+  {
+    final ThreadLocalRandom random = ThreadLocalRandom.current();
+    final ByteBuffer key = ByteBuffer.allocate(CompactKeyCodec.KEY_BYTES);
+    key.putLong((System.currentTimeMillis() << 16) | (random.nextInt() & 0xFFFF));
+    key.putLong(random.nextLong());
+    return CompactKeyCodec.toString(key.array());
+  }
+}
@@ -54,11 +54,22 @@ public class SyteSearchImageProviderClient
             .queryParam(PAYLOAD_TYPE, IMAGE_BIN)
             .build())
         .contentType(MediaType.TEXT_PLAIN)
-        .bodyValue(buffer.array())
+        .bodyValue(getBytes(buffer))
         .retrieve())
         .flatMap(rs -> rs.bodyToMono(String.class));
   }
 
+  /**
+   * Returns the bytes between position and limit of the given buffer, without changing the buffer.
+   */
+  protected byte[] getBytes(final ByteBuffer buffer)
+  {
+    final byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate()
+        .get(bytes);
+    return bytes;
+  }
+
   public Mono<String> retrieveSimilarProductsResult(final String itemId)
   {
     return Mono.fromCallable(() -> new URI(itemId))
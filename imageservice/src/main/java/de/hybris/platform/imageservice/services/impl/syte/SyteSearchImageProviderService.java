@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import de.hybris.platform.imageservice.dto.SearchImageData;
 import de.hybris.platform.imageservice.exceptions.SearchImageException;
+import de.hybris.platform.imageservice.scheduler.SearchImageSchedulers;
 import de.hybris.platform.imageservice.services.SearchImageParseService;
 import de.hybris.platform.imageservice.services.SearchImageProviderService;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +27,9 @@ public class SyteSearchImageProviderService implements SearchImageProviderServic
   @Autowired
   private SyteSearchImageProviderClient syteSearchImageProviderClient;
 
+  @Autowired
+  private SearchImageSchedulers searchImageSchedulers;
+
   @Override
   public Mono<SearchImageData> detectObjects(final ByteBuffer image)
   {
@@ -38,8 +42,8 @@ public class SyteSearchImageProviderService implements SearchImageProviderServic
       }
       return image;
     })
-        .doOnNext(ByteBuffer::flip)
         .flatMap(syteSearchImageProviderClient::getBoundingBoxes)
+        .publishOn(searchImageSchedulers.parallel())
         .map(searchImageParseService::parseItemsOnImage)
         .map(bb -> {
           imageData.setBoundingBoxes(bb);
@@ -66,6 +70,7 @@ public class SyteSearchImageProviderService implements SearchImageProviderServic
   public Mono<List<String>> getSimilarProducts(final String itemId)
   {
     return syteSearchImageProviderClient.retrieveSimilarProductsResult(itemId)
+        .publishOn(searchImageSchedulers.parallel())
         .map(searchImageParseService::parseIds)
         .flatMapMany(Flux::fromIterable)
         .collectList();
@@ -1,38 +1,67 @@
 package de.hybris.platform.imageservice.web;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import org.reactivestreams.Subscriber;
-import org.reactivestreams.Subscription;
+import java.util.concurrent.TimeUnit;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.http.codec.multipart.FilePart;
 import org.springframework.http.codec.multipart.Part;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
 import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import de.hybris.platform.imageservice.cache.model.SearchImageResponseCacheData;
+import de.hybris.platform.imageservice.dto.SearchImageData;
+import de.hybris.platform.imageservice.dto.SearchImageRegionData;
+import de.hybris.platform.imageservice.dto.SimilarProductsData;
 import de.hybris.platform.imageservice.exceptions.SearchImageException;
+import de.hybris.platform.imageservice.scheduler.SearchImageSchedulers;
 import de.hybris.platform.imageservice.services.SearchImageService;
 import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Slf4j
 @Component
 public class SearchImageHandler
 {
+  private static final ParameterizedTypeReference<List<String>> ITEM_IDS_TYPE =
+      new ParameterizedTypeReference<List<String>>()
+      {};
+
+  private static final String BOUNDING_BOXES_EVENT = "boundingBoxes";
+  private static final String SIMILAR_PRODUCTS_EVENT = "similarProducts";
+
+  @Value("${similar.batch.concurrency}")
+  private int similarProductsConcurrency;
+
   @Autowired
   private SearchImageService searchImageService;
 
+  @Autowired
+  private SimilarProductsResponseCache responseCache;
+
+  @Autowired
+  private SearchImageSchedulers searchImageSchedulers;
+
   public Mono<ServerResponse> uploadFile(ServerRequest request)
   {
-    return request.body(BodyExtractors.toMultipartData())
-        .flatMap(map -> {
-          Map<String, Part> parts = map.toSingleValueMap();
-          log.info("file: {}", parts.get("file"));
-          return Mono.just((FilePart) parts.get("file"));
-        })
-        .flatMap(this::getBuffer)
+    return getImageBuffer(request)
         .flatMap(t -> searchImageService.getSearchImageDataFromImage(t))
         .onErrorResume(e -> Mono.error(() -> new SearchImageException(e)))
         .flatMapMany(sid -> ServerResponse.ok()
@@ -40,48 +69,195 @@ public class SearchImageHandler
         .next();
   }
 
+  /**
+   * Returns the similar products of a bounding box. The response carries a strong entity tag derived
+   * from the product ids and may be cached by clients for the remaining freshness of the ids. Stale
+   * ids, which are being refreshed, are sent with max-age 0. Requests whose If-None-Match header
+   * matches are answered with 304 without a body. Without the response cache, the If-None-Match
+   * header is checked against the fresh cached ids first, so revalidations never reach the search
+   * image provider.
+   */
   public Mono<ServerResponse> getSimilarProducts(ServerRequest request)
   {
-    return searchImageService.getSimilarProductIds(request.pathVariable("id"))
+    final String itemId = request.pathVariable("id");
+    if (responseCache.isEnabled())
+    {
+      return Mono.fromCallable(() -> responseCache.get(itemId))
+          .subscribeOn(searchImageSchedulers.blocking())
+          .flatMap(cachedResponse -> writeCachedResponse(request, cachedResponse))
+          .switchIfEmpty(Mono.defer(() -> getSimilarProducts(request, itemId)));
+    }
+    if (!request.headers()
+        .header(HttpHeaders.IF_NONE_MATCH)
+        .isEmpty())
+    {
+      return searchImageService.getFreshSimilarProductIdsData(itemId)
+          .flatMap(data -> {
+            final String eTag = createETag(data.getIds());
+            return isNotModified(request, eTag) ? notModified(eTag, data.getMaxAge())
+                : Mono.<ServerResponse> empty();
+          })
+          .switchIfEmpty(Mono.defer(() -> getSimilarProducts(request, itemId)));
+    }
+    return getSimilarProducts(request, itemId);
+  }
+
+  private Mono<ServerResponse> getSimilarProducts(final ServerRequest request, final String itemId)
+  {
+    return searchImageService.getSimilarProductIdsData(itemId)
+        .onErrorResume(e -> Mono.error(() -> new SearchImageException(e)))
+        .flatMapMany(data -> {
+          final Collection<String> sid = data.getIds();
+          final String eTag = createETag(sid);
+          final long maxAge = data.getMaxAge();
+          final SearchImageResponseCacheData response =
+              responseCache.isEnabled() ? responseCache.put(itemId, sid, eTag, maxAge) : null;
+          if (response != null)
+          {
+            return writeCachedResponse(request, response);
+          }
+          if (isNotModified(request, eTag))
+          {
+            return notModified(eTag, maxAge);
+          }
+          return ServerResponse.ok()
+              .eTag(eTag)
+              .cacheControl(createCacheControl(maxAge))
+              .bodyValue(sid);
+        })
+        .next();
+  }
+
+  public Mono<ServerResponse> searchRegion(ServerRequest request)
+  {
+    return request.bodyToMono(SearchImageRegionData.class)
+        .flatMap(region -> searchImageService.getSearchImageDataFromRegion(region))
         .onErrorResume(e -> Mono.error(() -> new SearchImageException(e)))
         .flatMapMany(sid -> ServerResponse.ok()
             .bodyValue(sid))
         .next();
   }
 
-  private Mono<ByteBuffer> getBuffer(final FilePart filePart)
+  public Mono<ServerResponse> getSimilarProductsBatch(ServerRequest request)
   {
+    return request.bodyToMono(ITEM_IDS_TYPE)
+        .flatMap(itemIds -> searchImageService.getSimilarProductIds(itemIds))
+        .onErrorResume(e -> Mono.error(() -> new SearchImageException(e)))
+        .flatMapMany(sid -> ServerResponse.ok()
+            .bodyValue(sid))
+        .next();
+  }
 
-    final ByteBuffer byteBuffer = ByteBuffer.allocate(8 * 1024 * 1024);
+  /**
+   * Streams the upload result as server-sent events. The bounding boxes are sent as soon as they are
+   * detected, followed by one event per bounding box with its similar products.
+   */
+  public Mono<ServerResponse> uploadFileStream(ServerRequest request)
+  {
+    Flux<ServerSentEvent<Object>> events = getImageBuffer(request)
+        .flatMap(t -> searchImageService.getSearchImageDataFromImage(t))
+        .onErrorResume(e -> Mono.error(() -> new SearchImageException(e)))
+        .flatMapMany(sid -> Flux.concat(Mono.just(event(BOUNDING_BOXES_EVENT, sid)),
+            getSimilarProductEvents(sid)));
 
-    filePart.content()
-        .subscribe(new Subscriber<DataBuffer>()
-        {
-          @Override
-          public void onSubscribe(Subscription s)
-          {
-            s.request(Long.MAX_VALUE);
-          }
+    return ServerResponse.ok()
+        .contentType(MediaType.TEXT_EVENT_STREAM)
+        .body(BodyInserters.fromServerSentEvents(events));
+  }
 
-          @Override
-          public void onNext(DataBuffer buffer)
-          {
-            byteBuffer.put(buffer.asByteBuffer());
-          }
+  private Flux<ServerSentEvent<Object>> getSimilarProductEvents(final SearchImageData searchImageData)
+  {
+    return Flux.fromIterable(searchImageData.getBoundingBoxes())
+        .flatMap(item -> searchImageService.getSimilarProductIds(item.getId())
+            .map(ids -> event(SIMILAR_PRODUCTS_EVENT, new SimilarProductsData(item.getId(), ids)))
+            .onErrorResume(e -> {
+              log.warn("Similar products for {} could not be retrieved", item.getId(), e);
+              return Mono.empty();
+            }), similarProductsConcurrency);
+  }
 
-          @Override
-          public void onError(Throwable t)
-          {
-            log.info("onError bytebuffer");
-          }
+  /**
+   * Writes the cached response body without encoding it again.
+   */
+  private Mono<ServerResponse> writeCachedResponse(final ServerRequest request,
+      final SearchImageResponseCacheData cachedResponse)
+  {
+    if (isNotModified(request, cachedResponse.getETag()))
+    {
+      return notModified(cachedResponse.getETag(), getRemainingMaxAge(cachedResponse));
+    }
+    return ServerResponse.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .eTag(cachedResponse.getETag())
+        .cacheControl(createCacheControl(getRemainingMaxAge(cachedResponse)))
+        .body((outputMessage, context) -> outputMessage.writeWith(Mono.just(outputMessage
+            .bufferFactory()
+            .wrap(cachedResponse.getBody()))));
+  }
 
-          @Override
-          public void onComplete()
-          {
-            log.info("onComplete bytebuffer");
-          }
-        });
+  private long getRemainingMaxAge(final SearchImageResponseCacheData cachedResponse)
+  {
+    return Math.max(0, TimeUnit.MILLISECONDS
+        .toSeconds(cachedResponse.getFreshUntil() - System.currentTimeMillis()));
+  }
+
+  private Mono<ServerResponse> notModified(final String eTag, final long maxAge)
+  {
+    return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+        .eTag(eTag)
+        .cacheControl(createCacheControl(maxAge))
+        .build();
+  }
 
-    return Mono.just(byteBuffer);
+  private boolean isNotModified(final ServerRequest request, final String eTag)
+  {
+    return request.headers()
+        .header(HttpHeaders.IF_NONE_MATCH)
+        .stream()
+        .flatMap(header -> Arrays.stream(StringUtils.commaDelimitedListToStringArray(header)))
+        .map(String::trim)
+        .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+        .anyMatch(tag -> "*".equals(tag) || tag.equals(eTag));
+  }
+
+  private String createETag(final Collection<String> productIds)
+  {
+    return "\"" + DigestUtils.md5DigestAsHex(String.join("\n", productIds)
+        .getBytes(StandardCharsets.UTF_8)) + "\"";
+  }
+
+  private CacheControl createCacheControl(final long maxAge)
+  {
+    return CacheControl.maxAge(maxAge, TimeUnit.SECONDS)
+        .cachePublic();
+  }
+
+  private ServerSentEvent<Object> event(final String name, final Object data)
+  {
+    return ServerSentEvent.builder(data)
+        .event(name)
+        .build();
+  }
+
+  private Mono<ByteBuffer> getImageBuffer(ServerRequest request)
+  {
+    return request.body(BodyExtractors.toMultipartData())
+        .flatMap(map -> {
+          Map<String, Part> parts = map.toSingleValueMap();
+          log.info("file: {}", parts.get("file"));
+          return Mono.just((FilePart) parts.get("file"));
+        })
+        .flatMap(this::getBuffer);
+  }
+
+  private Mono<ByteBuffer> getBuffer(final FilePart filePart)
+  {
+    return DataBufferUtils.join(filePart.content())
+        .map(dataBuffer -> {
+          final byte[] bytes = new byte[dataBuffer.readableByteCount()];
+          dataBuffer.read(bytes);
+          DataBufferUtils.release(dataBuffer);
+          return ByteBuffer.wrap(bytes);
+        });
   }
 }
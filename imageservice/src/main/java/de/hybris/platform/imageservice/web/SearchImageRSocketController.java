@@ -0,0 +1,82 @@
+package de.hybris.platform.imageservice.web;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+import de.hybris.platform.imageservice.dto.SearchImageData;
+import de.hybris.platform.imageservice.dto.SimilarProductsData;
+import de.hybris.platform.imageservice.exceptions.SearchImageException;
+import de.hybris.platform.imageservice.services.SearchImageService;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * RSocket interface of the image service for server to server calls. All interactions of a client
+ * share one multiplexed connection with backpressure. The interface is internal only, the rate
+ * limiting and admission control of the HTTP routes are web filters and do not apply to it.
+ */
+@Slf4j
+@Controller
+public class SearchImageRSocketController
+{
+  @Value("${similar.batch.concurrency}")
+  private int similarProductsConcurrency;
+
+  @Autowired
+  private SearchImageService searchImageService;
+
+  /**
+   * Request-response: detects the bounding boxes of the given image.
+   */
+  @MessageMapping("imageservice.detect")
+  public Mono<SearchImageData> detect(final ByteBuffer image)
+  {
+    return searchImageService.getSearchImageDataFromImage(image)
+        .onErrorResume(e -> Mono.error(() -> new SearchImageException(e)));
+  }
+
+  /**
+   * Request-response: returns the similar products of a bounding box.
+   */
+  @MessageMapping("imageservice.similar")
+  public Mono<Collection<String>> getSimilarProducts(final String itemId)
+  {
+    return searchImageService.getSimilarProductIds(itemId)
+        .onErrorResume(e -> Mono.error(() -> new SearchImageException(e)));
+  }
+
+  /**
+   * Request-stream: emits the similar products of the given bounding boxes as soon as they are
+   * resolved.
+   */
+  @MessageMapping("imageservice.similar.stream")
+  public Flux<SimilarProductsData> streamSimilarProducts(final List<String> itemIds)
+  {
+    return getSimilarProducts(Flux.fromIterable(itemIds));
+  }
+
+  /**
+   * Request-channel: resolves the bounding boxes sent by the client and emits their similar products
+   * as soon as they are resolved. The demand of the client limits the bounding boxes in progress.
+   */
+  @MessageMapping("imageservice.similar.channel")
+  public Flux<SimilarProductsData> channelSimilarProducts(final Flux<String> itemIds)
+  {
+    return getSimilarProducts(itemIds);
+  }
+
+  private Flux<SimilarProductsData> getSimilarProducts(final Flux<String> itemIds)
+  {
+    return itemIds.flatMap(itemId -> searchImageService.getSimilarProductIds(itemId)
+        .map(ids -> new SimilarProductsData(itemId, ids))
+        .onErrorResume(e -> {
+          log.warn("Similar products for {} could not be retrieved", itemId, e);
+          return Mono.empty();
+        }), similarProductsConcurrency);
+  }
+}
@@ -27,7 +27,10 @@ public class SearchImageRouter
   public RouterFunction<ServerResponse> route(SearchImageHandler handler)
   {
     return nest(path("/imageservice"), RouterFunctions.route(GET("/{id}").and(accept(MediaType.APPLICATION_JSON)), handler::getSimilarProducts)
-        .andRoute(POST("/upload").and(accept(MediaType.MULTIPART_FORM_DATA)), handler::uploadFile));
+        .andRoute(POST("/upload").and(accept(MediaType.MULTIPART_FORM_DATA)), handler::uploadFile)
+        .andRoute(POST("/upload/stream").and(accept(MediaType.TEXT_EVENT_STREAM)), handler::uploadFileStream)
+        .andRoute(POST("/region").and(accept(MediaType.APPLICATION_JSON)), handler::searchRegion)
+        .andRoute(POST("/similar:batch").and(accept(MediaType.APPLICATION_JSON)), handler::getSimilarProductsBatch));
   }
 
   @Bean
@@ -0,0 +1,96 @@
+package de.hybris.platform.imageservice.web;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.hybris.platform.imageservice.cache.model.SearchImageResponseCacheData;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of the Json response bodies of similar products lookups. Cached bodies are written to the
+ * response as they are, without decoding and encoding the product ids again. The cache is only used
+ * if enabled with cache.response.enabled.
+ */
+@Slf4j
+@Component
+public class SimilarProductsResponseCache
+{
+  @Value("${cache.response.enabled}")
+  private boolean enabled;
+
+  @Value("${cache.response.name}")
+  private String responseCacheName;
+
+  @Value("${cache.response.seconds}")
+  private long timeToLive;
+
+  @Autowired
+  private CacheManager searchImageCacheManager;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  public boolean isEnabled()
+  {
+    return enabled;
+  }
+
+  /**
+   * Returns the cached response of the given item.
+   *
+   * @param itemId - bounding box id
+   * @return cached response, null if there is none or the cache is disabled
+   */
+  public SearchImageResponseCacheData get(final String itemId)
+  {
+    if (!enabled)
+    {
+      return null;
+    }
+    final SearchImageResponseCacheData cachedResponse = searchImageCacheManager
+        .getCache(responseCacheName)
+        .get(itemId, SearchImageResponseCacheData.class);
+    if (cachedResponse == null || cachedResponse.getExpiryTime() <= System.currentTimeMillis())
+    {
+      return null;
+    }
+    return cachedResponse;
+  }
+
+  /**
+   * Encodes and caches the response of the given item.
+   *
+   * @param itemId - bounding box id
+   * @param productIds - similar product ids
+   * @param eTag - entity tag of the response
+   * @param maxAge - seconds the response may be cached by clients, the response is not cached longer
+   *        and not at all if it is 0
+   * @return encoded response, null if the ids could not be encoded
+   */
+  public SearchImageResponseCacheData put(final String itemId, final Collection<String> productIds,
+      final String eTag, final long maxAge)
+  {
+    try
+    {
+      final long now = System.currentTimeMillis();
+      final SearchImageResponseCacheData cachedResponse = new SearchImageResponseCacheData(itemId,
+          objectMapper.writeValueAsBytes(productIds), eTag, now + TimeUnit.SECONDS.toMillis(maxAge),
+          now + TimeUnit.SECONDS.toMillis(Math.min(timeToLive, maxAge)));
+      if (maxAge > 0)
+      {
+        searchImageCacheManager.getCache(responseCacheName)
+            .put(itemId, cachedResponse);
+      }
+      return cachedResponse;
+    } catch (JsonProcessingException e)
+    {
+      log.debug("Response of item {} could not be encoded", itemId, e);
+      return null;
+    }
+  }
+}
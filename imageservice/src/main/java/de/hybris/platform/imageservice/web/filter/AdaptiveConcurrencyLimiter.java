@@ -0,0 +1,101 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limiter which adapts its limit to the observed latency (additive increase,
+ * multiplicative decrease). The limit grows by one per round trip of the whole window while requests
+ * complete within the target latency and shrinks by the backoff ratio when a request is slower or
+ * fails. The limit shrinks at most once per round trip: requests that were already in flight at the
+ * last decrease have been accounted for by it, so a burst of slow requests shrinks the limit once
+ * instead of once per request.
+ */
+public class AdaptiveConcurrencyLimiter
+{
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final double minLimit;
+  private final double maxLimit;
+  private final long targetLatencyNanos;
+  private final double backoffRatio;
+
+  private volatile double limit;
+  private long lastDecreaseNanos = System.nanoTime();
+
+  public AdaptiveConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit,
+      final long targetLatencyMillis, final double backoffRatio)
+  {
+    this.limit = initialLimit;
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+    this.backoffRatio = backoffRatio;
+  }
+
+  /**
+   * Acquires a permit if the number of requests in flight is below the current limit.
+   *
+   * @return true if the request is admitted
+   */
+  public boolean tryAcquire()
+  {
+    while (true)
+    {
+      final int current = inFlight.get();
+      if (current >= (int) limit)
+      {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1))
+      {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases a permit acquired by {@link #tryAcquire()} and adapts the limit.
+   *
+   * @param latencyNanos - time the request took
+   * @param dropped - true if the request failed
+   */
+  public void release(final long latencyNanos, final boolean dropped)
+  {
+    final long now = System.nanoTime();
+    final int current = inFlight.getAndDecrement();
+    synchronized (this)
+    {
+      if (dropped || latencyNanos > targetLatencyNanos)
+      {
+        if (now - latencyNanos - lastDecreaseNanos > 0)
+        {
+          limit = Math.max(minLimit, limit * backoffRatio);
+          lastDecreaseNanos = now;
+        }
+      } else if (current * 2 >= limit)
+      {
+        // only grow while the limit is actually used
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+    }
+  }
+
+  /**
+   * Releases a permit acquired by {@link #tryAcquire()} without adapting the limit, for requests
+   * whose duration does not reflect the latency of the service.
+   */
+  public void releaseWithoutSample()
+  {
+    inFlight.decrementAndGet();
+  }
+
+  public int getLimit()
+  {
+    return (int) limit;
+  }
+
+  public int getInFlight()
+  {
+    return inFlight.get();
+  }
+}
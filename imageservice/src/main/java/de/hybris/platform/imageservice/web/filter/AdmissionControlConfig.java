@@ -0,0 +1,26 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AdmissionControlConfigurationProperties.class)
+public class AdmissionControlConfig
+{
+  private Logger LOG = LoggerFactory.getLogger(AdmissionControlConfig.class);
+
+  @Bean
+  @ConditionalOnProperty(name = "admission.enabled", matchIfMissing = true)
+  public AdmissionControlWebFilter admissionControlWebFilter(
+      AdmissionControlConfigurationProperties properties)
+  {
+    LOG.info("Admission control enabled. Upload limit " + properties.getUpload()
+        .getInitialLimit() + ", lookup limit " + properties.getLookup()
+            .getInitialLimit() + ".");
+    return new AdmissionControlWebFilter(properties);
+  }
+}
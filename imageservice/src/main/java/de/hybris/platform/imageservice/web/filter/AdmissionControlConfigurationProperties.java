@@ -0,0 +1,43 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "admission")
+public class AdmissionControlConfigurationProperties
+{
+  private boolean enabled = true;
+  private long retryAfterSeconds = 1;
+  private Limit upload = new Limit(20, 2, 100, 3000);
+  private Limit lookup = new Limit(200, 10, 1000, 500);
+
+  @Data
+  public static class Limit
+  {
+    private int initialLimit;
+    private int minLimit;
+    private int maxLimit;
+    private long targetLatencyMillis;
+    private double backoffRatio = 0.9;
+
+    public Limit()
+    {
+    }
+
+    public Limit(final int initialLimit, final int minLimit, final int maxLimit,
+        final long targetLatencyMillis)
+    {
+      this.initialLimit = initialLimit;
+      this.minLimit = minLimit;
+      this.maxLimit = maxLimit;
+      this.targetLatencyMillis = targetLatencyMillis;
+    }
+
+    AdaptiveConcurrencyLimiter createLimiter()
+    {
+      return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, targetLatencyMillis,
+          backoffRatio);
+    }
+  }
+}
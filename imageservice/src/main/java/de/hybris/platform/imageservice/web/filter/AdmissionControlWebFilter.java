@@ -0,0 +1,94 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Admission control in front of the image service routes. Uploads and lookups have separate
+ * adaptive concurrency budgets, so cheap lookups are never queued behind uploads. Requests exceeding
+ * the budget are rejected immediately with 503 and a Retry-After header.
+ */
+@Slf4j
+public class AdmissionControlWebFilter implements WebFilter, Ordered
+{
+  public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+  private final Map<SearchImageRoute, AdaptiveConcurrencyLimiter> limiters =
+      new EnumMap<>(SearchImageRoute.class);
+  private final String retryAfter;
+
+  public AdmissionControlWebFilter(final AdmissionControlConfigurationProperties properties)
+  {
+    limiters.put(SearchImageRoute.UPLOAD, properties.getUpload()
+        .createLimiter());
+    limiters.put(SearchImageRoute.LOOKUP, properties.getLookup()
+        .createLimiter());
+    retryAfter = String.valueOf(properties.getRetryAfterSeconds());
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain)
+  {
+    final AdaptiveConcurrencyLimiter limiter = SearchImageRoute.resolve(exchange.getRequest())
+        .map(limiters::get)
+        .orElse(null);
+    if (limiter == null)
+    {
+      return chain.filter(exchange);
+    }
+
+    if (!limiter.tryAcquire())
+    {
+      log.debug("Request {} rejected, limit {} reached", exchange.getRequest()
+          .getPath(), limiter.getLimit());
+      return reject(exchange.getResponse());
+    }
+
+    if (SearchImageRoute.isStreaming(exchange.getRequest()))
+    {
+      // a stream lasts as long as all of its events, which says nothing about the latency
+      return chain.filter(exchange)
+          .doFinally(signal -> limiter.releaseWithoutSample());
+    }
+
+    final long start = System.nanoTime();
+    return chain.filter(exchange)
+        .doFinally(signal -> limiter.release(System.nanoTime() - start,
+            signal == SignalType.ON_ERROR || isServerError(exchange.getResponse())));
+  }
+
+  protected Mono<Void> reject(final ServerHttpResponse response)
+  {
+    response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+    response.getHeaders()
+        .set(HttpHeaders.RETRY_AFTER, retryAfter);
+    return response.setComplete();
+  }
+
+  protected boolean isServerError(final ServerHttpResponse response)
+  {
+    return response.getStatusCode() != null && response.getStatusCode()
+        .is5xxServerError();
+  }
+
+  protected AdaptiveConcurrencyLimiter getLimiter(final SearchImageRoute route)
+  {
+    return limiters.get(route);
+  }
+
+  @Override
+  public int getOrder()
+  {
+    return ORDER;
+  }
+}
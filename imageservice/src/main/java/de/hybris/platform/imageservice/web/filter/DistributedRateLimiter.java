@@ -0,0 +1,169 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per client fixed window counters, a client may send up to the limit of requests per window and the
+ * count starts again at zero with the next window. Requests are counted by local lock free counters
+ * and the local counts are pushed to Redis in batches, which returns the count of the whole
+ * cluster. Between two synchronizations a node only knows its own
+ * consumption, so the limit may be exceeded by the requests of the other nodes within one
+ * synchronization interval. If Redis is not available, the limit is applied per node.
+ */
+@Slf4j
+public class DistributedRateLimiter
+{
+  private final Map<SearchImageRoute, RateLimitConfigurationProperties.Limit> limits =
+      new EnumMap<>(SearchImageRoute.class);
+  private final Map<String, WindowCounter> counters = new ConcurrentHashMap<>();
+  private final RedisConnectionFactory redisConnectionFactory;
+  private final String keyPrefix;
+
+  public DistributedRateLimiter(final RateLimitConfigurationProperties properties,
+      final RedisConnectionFactory redisConnectionFactory)
+  {
+    limits.put(SearchImageRoute.UPLOAD, properties.getUpload());
+    limits.put(SearchImageRoute.LOOKUP, properties.getLookup());
+    this.redisConnectionFactory = redisConnectionFactory;
+    this.keyPrefix = properties.getKeyPrefix();
+  }
+
+  /**
+   * Counts a request of the given client in the current window.
+   *
+   * @param route - route of the request
+   * @param client - client key
+   * @return 0 if the request is within the limit, otherwise the seconds until the next window
+   */
+  public long tryConsume(final SearchImageRoute route, final String client)
+  {
+    final RateLimitConfigurationProperties.Limit limit = limits.get(route);
+    if (limit == null || limit.getLimit() <= 0)
+    {
+      return 0;
+    }
+
+    final long windowMillis = TimeUnit.SECONDS.toMillis(limit.getWindowSeconds());
+    final long now = System.currentTimeMillis();
+    final long window = now / windowMillis;
+    final String key = keyPrefix + ":" + route.name()
+        .toLowerCase() + ":" + client + ":" + window;
+
+    final WindowCounter counter = counters.computeIfAbsent(key,
+        k -> new WindowCounter(k, window, limit.getWindowSeconds()));
+    if (counter.tryConsume(limit.getLimit()))
+    {
+      return 0;
+    }
+    return Math.max(1, TimeUnit.MILLISECONDS.toSeconds((window + 1) * windowMillis - now));
+  }
+
+  /**
+   * Pushes the local counts of all active counters to Redis with one pipeline and evicts counters of
+   * past windows.
+   */
+  @Scheduled(fixedDelayString = "${ratelimit.syncIntervalMillis}")
+  public void synchronize()
+  {
+    final long now = System.currentTimeMillis();
+    counters.values()
+        .removeIf(counter -> counter.isExpired(now));
+
+    final List<WindowCounter> active = new ArrayList<>(counters.values());
+    if (active.isEmpty())
+    {
+      return;
+    }
+
+    final long[] drained = new long[active.size()];
+    for (int i = 0; i < drained.length; i++)
+    {
+      // the scheduler is the only writer of the global consumption
+      final WindowCounter counter = active.get(i);
+      drained[i] = counter.pending.getAndSet(0);
+      counter.global += drained[i];
+    }
+
+    try
+    {
+      final List<Object> results = incrementAll(active, drained);
+      for (int i = 0; i < drained.length; i++)
+      {
+        // results contain the INCRBY and EXPIRE reply of every counter
+        active.get(i).global = (Long) results.get(i * 2);
+      }
+    } catch (Exception e)
+    {
+      log.debug("Rate limit synchronization failed, limiting locally", e);
+    }
+  }
+
+  protected List<Object> incrementAll(final List<WindowCounter> active, final long[] drained)
+  {
+    final RedisConnection connection = redisConnectionFactory.getConnection();
+    try
+    {
+      connection.openPipeline();
+      for (int i = 0; i < drained.length; i++)
+      {
+        final WindowCounter counter = active.get(i);
+        final byte[] rawKey = counter.key.getBytes();
+        connection.stringCommands()
+            .incrBy(rawKey, drained[i]);
+        connection.keyCommands()
+            .expire(rawKey, counter.windowSeconds * 2);
+      }
+      return connection.closePipeline();
+    } finally
+    {
+      connection.close();
+    }
+  }
+
+  protected static class WindowCounter
+  {
+    private final String key;
+    private final long window;
+    private final long windowSeconds;
+    private final AtomicLong pending = new AtomicLong();
+    private volatile long global;
+
+    protected WindowCounter(final String key, final long window, final long windowSeconds)
+    {
+      this.key = key;
+      this.window = window;
+      this.windowSeconds = windowSeconds;
+    }
+
+    protected boolean tryConsume(final long limit)
+    {
+      while (true)
+      {
+        final long current = pending.get();
+        if (global + current >= limit)
+        {
+          return false;
+        }
+        if (pending.compareAndSet(current, current + 1))
+        {
+          return true;
+        }
+      }
+    }
+
+    protected boolean isExpired(final long now)
+    {
+      return now / TimeUnit.SECONDS.toMillis(windowSeconds) > window;
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(RateLimitConfigurationProperties.class)
+@ConditionalOnProperty(name = "ratelimit.enabled", matchIfMissing = true)
+public class RateLimitConfig
+{
+  private Logger LOG = LoggerFactory.getLogger(RateLimitConfig.class);
+
+  @Bean
+  public DistributedRateLimiter distributedRateLimiter(RateLimitConfigurationProperties properties,
+      RedisConnectionFactory redisConnectionFactory)
+  {
+    LOG.info("Rate limiting enabled. Upload limit " + properties.getUpload()
+        .getLimit() + ", lookup limit " + properties.getLookup()
+            .getLimit() + " per client.");
+    return new DistributedRateLimiter(properties, redisConnectionFactory);
+  }
+
+  @Bean
+  public RateLimitWebFilter rateLimitWebFilter(DistributedRateLimiter distributedRateLimiter,
+      RateLimitConfigurationProperties properties)
+  {
+    return new RateLimitWebFilter(distributedRateLimiter, properties.getApiKeyHeader(),
+        properties.getApiKeys());
+  }
+
+  @Bean
+  public TrustedProxyWebFilter trustedProxyWebFilter(RateLimitConfigurationProperties properties)
+  {
+    return new TrustedProxyWebFilter(properties.getTrustedProxies());
+  }
+}
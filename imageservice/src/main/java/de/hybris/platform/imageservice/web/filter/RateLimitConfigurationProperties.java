@@ -0,0 +1,37 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import lombok.Data;
+
+@Data
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitConfigurationProperties
+{
+  private boolean enabled = true;
+  private long syncIntervalMillis = 1000;
+  private String keyPrefix = "ratelimit";
+  private String apiKeyHeader = "X-API-Key";
+  private Set<String> apiKeys = new HashSet<>();
+  private Set<String> trustedProxies = new HashSet<>();
+  private Limit upload = new Limit(30, 60);
+  private Limit lookup = new Limit(600, 60);
+
+  @Data
+  public static class Limit
+  {
+    private long limit;
+    private long windowSeconds;
+
+    public Limit()
+    {
+    }
+
+    public Limit(final long limit, final long windowSeconds)
+    {
+      this.limit = limit;
+      this.windowSeconds = windowSeconds;
+    }
+  }
+}
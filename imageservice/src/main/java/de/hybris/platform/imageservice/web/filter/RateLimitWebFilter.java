@@ -0,0 +1,98 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rate limiting of the image service routes per client. Clients are identified by their API key if
+ * it is one of the configured keys, otherwise by their IP address as resolved by the
+ * {@link TrustedProxyWebFilter}. Headers chosen freely by the
+ * caller, like an unknown API key or the origin, are not used, since a client could get a new limit
+ * with every request. Requests exceeding the limit are rejected with 429 and a Retry-After header.
+ */
+@Slf4j
+public class RateLimitWebFilter implements WebFilter, Ordered
+{
+  public static final int ORDER = AdmissionControlWebFilter.ORDER - 50;
+
+  private static final String UNKNOWN_CLIENT = "unknown";
+
+  private final DistributedRateLimiter rateLimiter;
+  private final String apiKeyHeader;
+  private final Set<String> apiKeys;
+
+  public RateLimitWebFilter(final DistributedRateLimiter rateLimiter, final String apiKeyHeader,
+      final Set<String> apiKeys)
+  {
+    this.rateLimiter = rateLimiter;
+    this.apiKeyHeader = apiKeyHeader;
+    this.apiKeys = apiKeys;
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain)
+  {
+    final SearchImageRoute route = SearchImageRoute.resolve(exchange.getRequest())
+        .orElse(null);
+    if (route == null)
+    {
+      return chain.filter(exchange);
+    }
+
+    final String client = getClientKey(exchange.getRequest());
+    final long retryAfter = rateLimiter.tryConsume(route, client);
+    if (retryAfter > 0)
+    {
+      log.debug("Request {} of client {} rejected, rate limit reached", exchange.getRequest()
+          .getPath(), client);
+      return reject(exchange.getResponse(), retryAfter);
+    }
+    return chain.filter(exchange);
+  }
+
+  protected String getClientKey(final ServerHttpRequest request)
+  {
+    final String apiKey = request.getHeaders()
+        .getFirst(apiKeyHeader);
+    if (StringUtils.hasText(apiKey) && apiKeys.contains(apiKey))
+    {
+      // API keys are not stored in Redis as plain text
+      return "key:" + DigestUtils.md5DigestAsHex(apiKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // resolved by the TrustedProxyWebFilter for requests passed on by a trusted proxy
+    final InetSocketAddress remoteAddress = request.getRemoteAddress();
+    if (remoteAddress != null)
+    {
+      return "ip:" + TrustedProxyWebFilter.getHostAddress(remoteAddress);
+    }
+    return UNKNOWN_CLIENT;
+  }
+
+  protected Mono<Void> reject(final ServerHttpResponse response, final long retryAfter)
+  {
+    response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+    response.getHeaders()
+        .set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+    return response.setComplete();
+  }
+
+  @Override
+  public int getOrder()
+  {
+    return ORDER;
+  }
+}
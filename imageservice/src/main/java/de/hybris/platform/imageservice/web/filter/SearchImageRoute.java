@@ -0,0 +1,68 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import java.util.Optional;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Classification of the image service routes used by the request filters.
+ */
+public enum SearchImageRoute
+{
+  /**
+   * Image uploads and region searches, which hold an image in memory and call the search image
+   * provider.
+   */
+  UPLOAD,
+
+  /**
+   * Similar products lookups, which are mostly answered from the cache.
+   */
+  LOOKUP;
+
+  private static final String ROOT_PATH = "/imageservice/";
+  private static final String UPLOAD_PATH = ROOT_PATH + "upload";
+  private static final String REGION_PATH = ROOT_PATH + "region";
+  private static final String BATCH_PATH = ROOT_PATH + "similar:batch";
+  private static final String UPLOAD_STREAM_PATH = UPLOAD_PATH + "/stream";
+
+  /**
+   * Resolves the route of the given request.
+   *
+   * @param request - incoming request
+   * @return route of the request, empty if the request does not target the image service
+   */
+  public static Optional<SearchImageRoute> resolve(final ServerHttpRequest request)
+  {
+    final String path = request.getPath()
+        .pathWithinApplication()
+        .value();
+    final HttpMethod method = request.getMethod();
+
+    if (!path.startsWith(ROOT_PATH))
+    {
+      return Optional.empty();
+    }
+    if (HttpMethod.POST.equals(method) && (path.startsWith(UPLOAD_PATH) || path.equals(REGION_PATH)))
+    {
+      return Optional.of(UPLOAD);
+    }
+    if (HttpMethod.GET.equals(method) || (HttpMethod.POST.equals(method) && path.equals(BATCH_PATH)))
+    {
+      return Optional.of(LOOKUP);
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * @param request - incoming request
+   * @return true if the response of the request is streamed as server-sent events
+   */
+  public static boolean isStreaming(final ServerHttpRequest request)
+  {
+    return HttpMethod.POST.equals(request.getMethod()) && request.getPath()
+        .pathWithinApplication()
+        .value()
+        .equals(UPLOAD_STREAM_PATH);
+  }
+}
@@ -0,0 +1,135 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.server.adapter.ForwardedHeaderTransformer;
+import reactor.core.publisher.Mono;
+
+/**
+ * Resolves the client address of requests passed on by the trusted proxies, like the load balancer
+ * or CDN in front of the image service. Forwarded headers are only applied if the request comes
+ * from one of the configured proxy addresses, the client address is then the last address of the
+ * X-Forwarded-For header not belonging to a trusted proxy. Forwarded headers of all other requests
+ * are removed, so clients can't choose their own address for rate limiting.
+ */
+public class TrustedProxyWebFilter implements WebFilter, Ordered
+{
+  public static final int ORDER = RateLimitWebFilter.ORDER - 50;
+
+  static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+  private final ForwardedHeaderTransformer forwardedHeaderTransformer =
+      new ForwardedHeaderTransformer();
+  private final ForwardedHeaderTransformer forwardedHeaderRemover = new ForwardedHeaderTransformer();
+  private final Set<String> trustedProxies;
+
+  public TrustedProxyWebFilter(final Set<String> trustedProxies)
+  {
+    this.trustedProxies = trustedProxies;
+    forwardedHeaderRemover.setRemoveOnly(true);
+  }
+
+  @Override
+  public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain)
+  {
+    final ServerHttpRequest request = exchange.getRequest();
+    if (!isTrustedProxy(request.getRemoteAddress()))
+    {
+      final ServerHttpRequest untrusted = forwardedHeaderRemover.apply(request.mutate()
+          .headers(headers -> headers.remove(X_FORWARDED_FOR))
+          .build());
+      return chain.filter(exchange.mutate()
+          .request(untrusted)
+          .build());
+    }
+
+    final InetSocketAddress clientAddress = resolveClientAddress(request);
+    final ServerHttpRequest forwarded = forwardedHeaderTransformer.apply(request);
+    return chain.filter(exchange.mutate()
+        .request(withRemoteAddress(forwarded, clientAddress))
+        .build());
+  }
+
+  /**
+   * Walks the X-Forwarded-For addresses from the proxy closest to the image service backwards, the
+   * first address not belonging to a trusted proxy is the client. Addresses further left were added
+   * by the client itself and can't be trusted.
+   */
+  protected InetSocketAddress resolveClientAddress(final ServerHttpRequest request)
+  {
+    final List<String> forwardedFor = getForwardedFor(request);
+    for (int i = forwardedFor.size() - 1; i >= 0; i--)
+    {
+      final String address = forwardedFor.get(i);
+      if (i == 0 || !trustedProxies.contains(address))
+      {
+        return InetSocketAddress.createUnresolved(address, 0);
+      }
+    }
+    return request.getRemoteAddress();
+  }
+
+  protected List<String> getForwardedFor(final ServerHttpRequest request)
+  {
+    final List<String> forwardedFor = new ArrayList<>();
+    final List<String> values = request.getHeaders()
+        .get(X_FORWARDED_FOR);
+    if (values != null)
+    {
+      for (final String value : values)
+      {
+        for (final String address : StringUtils.commaDelimitedListToStringArray(value))
+        {
+          if (StringUtils.hasText(address))
+          {
+            forwardedFor.add(address.trim());
+          }
+        }
+      }
+    }
+    return forwardedFor;
+  }
+
+  protected boolean isTrustedProxy(final InetSocketAddress remoteAddress)
+  {
+    return remoteAddress != null && trustedProxies.contains(getHostAddress(remoteAddress));
+  }
+
+  protected ServerHttpRequest withRemoteAddress(final ServerHttpRequest request,
+      final InetSocketAddress remoteAddress)
+  {
+    return new ServerHttpRequestDecorator(request)
+    {
+      @Override
+      public InetSocketAddress getRemoteAddress()
+      {
+        return remoteAddress;
+      }
+    };
+  }
+
+  /**
+   * @return the IP address of the given socket address, without a DNS lookup for unresolved
+   *         addresses
+   */
+  public static String getHostAddress(final InetSocketAddress address)
+  {
+    return address.getAddress() != null ? address.getAddress()
+        .getHostAddress() : address.getHostString();
+  }
+
+  @Override
+  public int getOrder()
+  {
+    return ORDER;
+  }
+}
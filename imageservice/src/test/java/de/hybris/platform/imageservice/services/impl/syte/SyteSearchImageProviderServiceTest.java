@@ -0,0 +1,67 @@
+package de.hybris.platform.imageservice.services.impl.syte;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import de.hybris.platform.imageservice.dto.SearchImageItemData;
+import de.hybris.platform.imageservice.scheduler.SearchImageSchedulers;
+import de.hybris.platform.imageservice.services.SearchImageParseService;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@ExtendWith(MockitoExtension.class)
+class SyteSearchImageProviderServiceTest
+{
+  private static final byte[] IMAGE = "image".getBytes(StandardCharsets.UTF_8);
+
+  @Mock
+  private SearchImageParseService searchImageParseService;
+
+  @Mock
+  private SyteSearchImageProviderClient syteSearchImageProviderClient;
+
+  @Mock
+  private SearchImageSchedulers searchImageSchedulers;
+
+  @InjectMocks
+  private SyteSearchImageProviderService syteSearchImageProviderService;
+
+  @BeforeEach
+  void setUp()
+  {
+    when(searchImageSchedulers.parallel()).thenReturn(Schedulers.immediate());
+    when(syteSearchImageProviderClient.getBoundingBoxes(any(ByteBuffer.class)))
+        .thenReturn(Mono.just("{}"));
+    when(searchImageParseService.parseItemsOnImage(anyString()))
+        .thenReturn(Collections.<SearchImageItemData> emptyList());
+  }
+
+  @Test
+  void detectObjectsSendsImageAsDecodedByRSocket()
+  {
+    // buffers decoded from an RSocket payload have position 0 and limit n
+    final ByteBuffer image = ByteBuffer.wrap(IMAGE.clone());
+
+    syteSearchImageProviderService.detectObjects(image)
+        .block();
+
+    final ArgumentCaptor<ByteBuffer> sent = ArgumentCaptor.forClass(ByteBuffer.class);
+    verify(syteSearchImageProviderClient).getBoundingBoxes(sent.capture());
+    assertEquals(IMAGE.length, sent.getValue()
+        .remaining());
+    assertArrayEquals(IMAGE, new SyteSearchImageProviderClient().getBytes(sent.getValue()));
+  }
+}
@@ -0,0 +1,73 @@
+package de.hybris.platform.imageservice.web.filter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class TrustedProxyWebFilterTest
+{
+  private static final String PROXY = "10.0.0.1";
+  private static final String CDN = "10.0.0.2";
+  private static final String CLIENT = "203.0.113.7";
+  private static final String SPOOFED = "198.51.100.1";
+
+  private final TrustedProxyWebFilter filter =
+      new TrustedProxyWebFilter(new HashSet<>(Arrays.asList(PROXY, CDN)));
+
+  @Test
+  void clientAddressIsResolvedBehindTrustedProxies()
+  {
+    final ServerHttpRequest request = filter(MockServerHttpRequest.get("/")
+        .remoteAddress(new InetSocketAddress(PROXY, 443))
+        .header(TrustedProxyWebFilter.X_FORWARDED_FOR, SPOOFED + ", " + CLIENT)
+        .header(TrustedProxyWebFilter.X_FORWARDED_FOR, CDN)
+        .build());
+
+    assertEquals(CLIENT, TrustedProxyWebFilter.getHostAddress(request.getRemoteAddress()));
+  }
+
+  @Test
+  void forwardedHeadersOfUntrustedClientsAreIgnored()
+  {
+    final ServerHttpRequest request = filter(MockServerHttpRequest.get("/")
+        .remoteAddress(new InetSocketAddress(CLIENT, 443))
+        .header(TrustedProxyWebFilter.X_FORWARDED_FOR, SPOOFED)
+        .header("X-Forwarded-Host", "spoofed.example.com")
+        .build());
+
+    assertEquals(CLIENT, TrustedProxyWebFilter.getHostAddress(request.getRemoteAddress()));
+    assertNull(request.getHeaders()
+        .getFirst(TrustedProxyWebFilter.X_FORWARDED_FOR));
+    assertNull(request.getHeaders()
+        .getFirst("X-Forwarded-Host"));
+  }
+
+  @Test
+  void trustedProxyWithoutForwardedForIsTheClient()
+  {
+    final ServerHttpRequest request = filter(MockServerHttpRequest.get("/")
+        .remoteAddress(new InetSocketAddress(PROXY, 443))
+        .build());
+
+    assertEquals(PROXY, TrustedProxyWebFilter.getHostAddress(request.getRemoteAddress()));
+  }
+
+  private ServerHttpRequest filter(final MockServerHttpRequest request)
+  {
+    final AtomicReference<ServerHttpRequest> filtered = new AtomicReference<>();
+    filter.filter(MockServerWebExchange.from(request), exchange -> {
+      filtered.set(exchange.getRequest());
+      return Mono.empty();
+    })
+        .block();
+    return filtered.get();
+  }
+}
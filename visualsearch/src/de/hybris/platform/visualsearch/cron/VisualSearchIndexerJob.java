@@ -7,6 +7,7 @@ import de.hybris.platform.cronjob.enums.CronJobResult;
 import de.hybris.platform.cronjob.enums.CronJobStatus;
 import de.hybris.platform.servicelayer.cronjob.AbstractJobPerformable;
 import de.hybris.platform.servicelayer.cronjob.PerformResult;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.VisualSearchIndexerService;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
@@ -34,7 +35,10 @@ public class VisualSearchIndexerJob extends AbstractJobPerformable<VisualSearchI
 				return new PerformResult(CronJobResult.FAILURE, CronJobStatus.ABORTED);
 			}
 
-			visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig);
+			final VisualSearchIndexerOperation indexerOperation = cronJob.getIndexerOperation() == null
+					? VisualSearchIndexerOperation.FULL
+					: cronJob.getIndexerOperation();
+			visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig, indexerOperation);
 
 		}
 		catch (final VisualSearchIndexerException e)
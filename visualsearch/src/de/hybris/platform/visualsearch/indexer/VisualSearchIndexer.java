@@ -4,6 +4,7 @@
 package de.hybris.platform.visualsearch.indexer;
 
 import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
 
@@ -34,6 +35,28 @@ public interface VisualSearchIndexer
 	public void generateDataFeed(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
 			final String fileName) throws VisualSearchIndexerException, InterruptedException;
 
+	/**
+	 * Generates the data feed of the given indexing operation. A {@link VisualSearchIndexerOperation#DELETE} feed only
+	 * contains the first indexed property, which identifies the products to be removed.
+	 *
+	 * @param items
+	 *           items for send to indexer in one transaction
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 * @param indexerOperation
+	 *           kind of indexing run the feed belongs to
+	 * @param fileName
+	 *           name of the file to be generated
+	 * @throws VisualSearchIndexerException
+	 *            if an error occurs during indexing
+	 * @throws InterruptedException
+	 *            if any thread interrupted the current thread before before it completed indexing. The interrupted
+	 *            status of the current thread is cleared when this exception is thrown.
+	 */
+	public void generateDataFeed(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation, final String fileName)
+			throws VisualSearchIndexerException, InterruptedException;
+
 	/**
 	 * Uploads generated data feed (csv file) to a sftp server.
 	 *
@@ -49,4 +72,45 @@ public interface VisualSearchIndexer
 	 */
 	public void uploadDataFeed(final String fileName, final VisualSearchConfigModel visualSearchConfig)
 			throws VisualSearchIndexerException, InterruptedException;
+
+	/**
+	 * Generates the data feed and streams it directly to the sftp server, without writing a local file. Failed uploads are
+	 * retried up to the maximum number of batch retries of the index configuration.
+	 *
+	 * @param items
+	 *           items for send to indexer in one transaction
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 * @param fileName
+	 *           name of the file on the sftp server
+	 * @throws VisualSearchIndexerException
+	 *            if an error occurs during indexing
+	 * @throws InterruptedException
+	 *            if any thread interrupted the current thread before before it completed indexing. The interrupted
+	 *            status of the current thread is cleared when this exception is thrown.
+	 */
+	public void streamDataFeed(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
+			final String fileName) throws VisualSearchIndexerException, InterruptedException;
+
+	/**
+	 * Streams the data feed of the given indexing operation to the sftp server, see
+	 * {@link #generateDataFeed(Collection, VisualSearchConfigModel, VisualSearchIndexerOperation, String)}.
+	 *
+	 * @param items
+	 *           items for send to indexer in one transaction
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 * @param indexerOperation
+	 *           kind of indexing run the feed belongs to
+	 * @param fileName
+	 *           name of the file on the sftp server
+	 * @throws VisualSearchIndexerException
+	 *            if an error occurs during indexing
+	 * @throws InterruptedException
+	 *            if any thread interrupted the current thread before before it completed indexing. The interrupted
+	 *            status of the current thread is cleared when this exception is thrown.
+	 */
+	public void streamDataFeed(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation, final String fileName)
+			throws VisualSearchIndexerException, InterruptedException;
 }
@@ -3,6 +3,7 @@
  */
 package de.hybris.platform.visualsearch.indexer;
 
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
 
@@ -20,4 +21,19 @@ public interface VisualSearchIndexerService
 	 *            an error during indexing process
 	 */
 	void performVisualSearchIndex(final VisualSearchConfigModel visualSearchConfig) throws VisualSearchIndexerException;
+
+	/**
+	 * Performs an indexing run of the given kind. An {@link VisualSearchIndexerOperation#UPDATE} run exports only the
+	 * products changed since the last successful run, it falls back to a full run if there is no such run or no update
+	 * query.
+	 *
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 * @param indexerOperation
+	 *           kind of indexing run
+	 * @throws VisualSearchIndexerException
+	 *            an error during indexing process
+	 */
+	void performVisualSearchIndex(final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation) throws VisualSearchIndexerException;
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
+
+import java.util.Collection;
+import java.util.Map;
+
+
+/**
+ * Keeps the fingerprints of the data feed rows last exported for each product, so that unchanged rows don't need to be
+ * exported again.
+ */
+public interface VisualSearchRowFingerprintService
+{
+	/**
+	 * Computes the fingerprint of a data feed row.
+	 *
+	 * @param row
+	 *           the data feed row
+	 * @return the fingerprint
+	 */
+	long computeFingerprint(final CharSequence row);
+
+	/**
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 * @param pks
+	 *           pks of the products
+	 * @return the stored fingerprints by product pk, products without fingerprint are not present in the result
+	 */
+	Map<PK, Long> getFingerprints(final VisualSearchConfigModel visualSearchConfig, final Collection<PK> pks);
+
+	/**
+	 * Stores the given fingerprints, replacing the existing ones of the same products.
+	 *
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 * @param fingerprints
+	 *           fingerprints by product pk
+	 */
+	void saveFingerprints(final VisualSearchConfigModel visualSearchConfig, final Map<PK, Long> fingerprints);
+
+	/**
+	 * Removes the fingerprints of the given products, their rows are exported by the next indexing run.
+	 *
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 * @param pks
+	 *           pks of the products
+	 */
+	void removeFingerprints(final VisualSearchConfigModel visualSearchConfig, final Collection<PK> pks);
+
+	/**
+	 * Removes the fingerprints of products that no longer exist. Products removed from the database can't be exported in
+	 * a delete feed, so their fingerprints are only dropped here.
+	 *
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 */
+	void removeOrphanedFingerprints(final VisualSearchConfigModel visualSearchConfig);
+}
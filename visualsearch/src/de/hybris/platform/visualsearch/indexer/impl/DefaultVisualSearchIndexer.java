@@ -3,10 +3,16 @@
  */
 package de.hybris.platform.visualsearch.indexer.impl;
 
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.VisualSearchIndexer;
+import de.hybris.platform.visualsearch.indexer.VisualSearchRowFingerprintService;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRuntimeException;
+import de.hybris.platform.visualsearch.indexer.providers.BulkVisualSearchValueProvider;
+import de.hybris.platform.visualsearch.indexer.providers.ProjectionVisualSearchValueProvider;
 import de.hybris.platform.visualsearch.indexer.providers.VisualSearchValueProvider;
 import de.hybris.platform.visualsearch.indexer.sftp.VisualSearchSSHDPool;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
@@ -17,13 +23,28 @@ import de.hybris.platform.visualsearch.model.VisualSearchServerConfigModel;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
@@ -32,31 +53,50 @@ import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.SftpException;
 
 
-public class DefaultVisualSearchIndexer implements VisualSearchIndexer, ApplicationContextAware
+public class DefaultVisualSearchIndexer implements VisualSearchIndexer, ApplicationContextAware, DisposableBean
 {
 	private static final Logger LOG = Logger.getLogger(DefaultVisualSearchIndexer.class);
 
+	protected static final int MIN_ROWS_PER_TASK = 16;
+	protected static final String PART_FILE_SUFFIX = ".part";
+	protected static final Charset FEED_CHARSET = StandardCharsets.UTF_8;
+
 	private VisualSearchSSHDPool sshdPool;
 	private ApplicationContext applicationContext;
+	private VisualSearchRowFingerprintService visualSearchRowFingerprintService;
+	private ModelService modelService;
+	private int spillBufferSize = 1024 * 1024;
+	private int parallelism;
+	private ForkJoinPool forkJoinPool;
 
 	@Override
 	public void generateDataFeed(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
 			final String filePath) throws VisualSearchIndexerException, InterruptedException
+	{
+		generateDataFeed(items, visualSearchConfig, VisualSearchIndexerOperation.FULL, filePath);
+	}
+
+	@Override
+	public void generateDataFeed(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation, final String filePath)
+			throws VisualSearchIndexerException, InterruptedException
 	{
 		try
 		{
 			final VisualSearchIndexConfigModel indexConfig = visualSearchConfig.getIndexConfig();
-			final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties = indexConfig
-					.getVisualSearchIndexedProperties();
+			final VisualSearchFeedRowPlan rowPlan = compileRowPlan(indexConfig, indexerOperation);
+			final VisualSearchFeedFingerprints fingerprints = createFingerprints(items, visualSearchConfig, indexerOperation);
 
 			final File file = new File(filePath);
-			try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, true)))
+			try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+					VisualSearchFeedCompressionUtils.compress(new FileOutputStream(file, true), indexConfig), FEED_CHARSET)))
 			{
-				generateCSVHeader(writer, visualSearchIndexedProperties);
-				generateCSVContent(writer, items, visualSearchIndexedProperties);
+				generateCSVHeader(writer, rowPlan);
+				generateCSVContent(writer, items, rowPlan, fingerprints);
 				writer.flush();
 			}
 			setFilePermissions(filePath);
+			updateFingerprints(items, visualSearchConfig, indexerOperation, fingerprints);
 		}
 		catch (final IOException e)
 		{
@@ -100,33 +140,496 @@ public class DefaultVisualSearchIndexer implements VisualSearchIndexer, Applicat
 		}
 	}
 
-	protected void generateCSVHeader(final BufferedWriter writer,
-			final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties) throws IOException
+	@Override
+	public void streamDataFeed(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
+			final String fileName) throws VisualSearchIndexerException, InterruptedException
 	{
-		final StringBuilder builder = new StringBuilder();
-		visualSearchIndexedProperties.forEach(indexProperty -> builder.append(indexProperty.getDisplayName()).append(";"));
-		builder.append('\n');
-		writer.append(builder.toString());
+		streamDataFeed(items, visualSearchConfig, VisualSearchIndexerOperation.FULL, fileName);
+	}
+
+	@Override
+	public void streamDataFeed(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation, final String fileName)
+			throws VisualSearchIndexerException, InterruptedException
+	{
+		final VisualSearchIndexConfigModel indexConfig = visualSearchConfig.getIndexConfig();
+		final VisualSearchFeedRowPlan rowPlan = compileRowPlan(indexConfig, indexerOperation);
+		final VisualSearchFeedFingerprints fingerprints = createFingerprints(items, visualSearchConfig, indexerOperation);
+		final int maxBatchRetries = indexConfig.getMaxBatchRetries();
+
+		byte[] spilledContent = null;
+		for (int attempt = 0;; attempt++)
+		{
+			final VisualSearchServerConfigModel serverConfig = visualSearchConfig.getServerConfig();
+			ChannelSftp sftpChannel = null;
+			String partFileName = null;
+			VisualSearchSpillOutputStream outputStream = null;
+			try
+			{
+				sftpChannel = sshdPool.getConnection(serverConfig);
+				if (!StringUtils.isBlank(serverConfig.getDestinationPath()))
+				{
+					sftpChannel.cd(serverConfig.getDestinationPath());
+				}
+
+				// the feed gets its final name only once it is complete, so that a broken upload is never picked up
+				partFileName = fileName + PART_FILE_SUFFIX;
+				try (OutputStream sftpStream = sftpChannel.put(partFileName))
+				{
+					if (spilledContent != null)
+					{
+						sftpStream.write(spilledContent);
+					}
+					else
+					{
+						outputStream = new VisualSearchSpillOutputStream(sftpStream, spillBufferSize);
+						writeDataFeed(outputStream, items, rowPlan, indexConfig, fingerprints);
+					}
+				}
+				sftpChannel.rename(partFileName, fileName);
+				sshdPool.returnConnection(sftpChannel);
+				sftpChannel = null;
+				updateFingerprints(items, visualSearchConfig, indexerOperation, fingerprints);
+				return;
+			}
+			catch (final VisualSearchIndexerException | IOException | SftpException e)
+			{
+				LOG.error("Error while streaming datafeed to sftp.", e);
+				if (attempt >= maxBatchRetries)
+				{
+					throw new VisualSearchIndexerException("Upload of datafeed " + fileName + " has failed.", e);
+				}
+				if (outputStream != null && outputStream.isComplete())
+				{
+					spilledContent = outputStream.getSpilledContent();
+				}
+				LOG.info("Retry datafeed " + fileName);
+			}
+			finally
+			{
+				if (sftpChannel != null)
+				{
+					if (partFileName != null)
+					{
+						removePartFile(sftpChannel, partFileName);
+					}
+					invalidateConnection(sftpChannel);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the truncated part file of a failed upload, so that it doesn't stay on the server. The channel may already be
+	 * broken, the removal is only attempted.
+	 */
+	protected void removePartFile(final ChannelSftp sftpChannel, final String partFileName)
+	{
+		try
+		{
+			sftpChannel.rm(partFileName);
+		}
+		catch (final SftpException e)
+		{
+			LOG.warn("Error while removing part file " + partFileName + " of failed upload.", e);
+		}
+	}
+
+	/**
+	 * Invalidates a connection that failed or is left in an unknown state, without hiding the original error.
+	 */
+	protected void invalidateConnection(final ChannelSftp sftpChannel)
+	{
+		try
+		{
+			sshdPool.invalidateObject(sftpChannel);
+		}
+		catch (final VisualSearchIndexerException e)
+		{
+			LOG.warn("Error while invalidating sftp connection.", e);
+		}
+	}
+
+	/**
+	 * Encodes and compresses the data feed into the given stream and closes it.
+	 */
+	protected void writeDataFeed(final VisualSearchSpillOutputStream outputStream, final Collection<ItemModel> items,
+			final VisualSearchFeedRowPlan rowPlan, final VisualSearchIndexConfigModel indexConfig,
+			final VisualSearchFeedFingerprints fingerprints) throws IOException
+	{
+		try (BufferedWriter writer = new BufferedWriter(
+				new OutputStreamWriter(VisualSearchFeedCompressionUtils.compress(outputStream, indexConfig), FEED_CHARSET)))
+		{
+			generateCSVHeader(writer, rowPlan);
+			generateCSVContent(writer, items, rowPlan, fingerprints);
+		}
+		catch (final VisualSearchIndexerRuntimeException e)
+		{
+			if (e.getCause() instanceof IOException)
+			{
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+		outputStream.markComplete();
+	}
+
+	/**
+	 * @return the fingerprints of the feed rows, <code>null</code> if fingerprints are disabled or not used by the given
+	 *         operation. Unchanged rows are only skipped by update runs, full runs export them and refresh the fingerprints.
+	 */
+	protected VisualSearchFeedFingerprints createFingerprints(final Collection<ItemModel> items,
+			final VisualSearchConfigModel visualSearchConfig, final VisualSearchIndexerOperation indexerOperation)
+	{
+		if (!Boolean.TRUE.equals(visualSearchConfig.getIndexConfig().getFingerprintEnabled())
+				|| VisualSearchIndexerOperation.DELETE.equals(indexerOperation))
+		{
+			return null;
+		}
+		return new VisualSearchFeedFingerprints(visualSearchRowFingerprintService,
+				visualSearchRowFingerprintService.getFingerprints(visualSearchConfig, getPks(items)),
+				VisualSearchIndexerOperation.UPDATE.equals(indexerOperation));
+	}
+
+	/**
+	 * Stores the fingerprints of the changed rows once the feed has been written. Deleted products lose their fingerprint,
+	 * so that they are exported again if they come back.
+	 */
+	protected void updateFingerprints(final Collection<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation, final VisualSearchFeedFingerprints fingerprints)
+	{
+		if (!Boolean.TRUE.equals(visualSearchConfig.getIndexConfig().getFingerprintEnabled()))
+		{
+			return;
+		}
+		if (VisualSearchIndexerOperation.DELETE.equals(indexerOperation))
+		{
+			visualSearchRowFingerprintService.removeFingerprints(visualSearchConfig, getPks(items));
+		}
+		else if (fingerprints != null)
+		{
+			visualSearchRowFingerprintService.saveFingerprints(visualSearchConfig, fingerprints.getChangedFingerprints());
+		}
+	}
+
+	protected List<PK> getPks(final Collection<ItemModel> items)
+	{
+		return items.stream().map(ItemModel::getPk).collect(Collectors.toList());
+	}
+
+	/**
+	 * Compiles the row plan of the given indexing operation. Delete feeds only contain the first indexed property.
+	 */
+	protected VisualSearchFeedRowPlan compileRowPlan(final VisualSearchIndexConfigModel indexConfig,
+			final VisualSearchIndexerOperation indexerOperation) throws VisualSearchIndexerRuntimeException
+	{
+		List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties = indexConfig.getVisualSearchIndexedProperties();
+		if (VisualSearchIndexerOperation.DELETE.equals(indexerOperation) && visualSearchIndexedProperties.size() > 1)
+		{
+			visualSearchIndexedProperties = visualSearchIndexedProperties.subList(0, 1);
+		}
+		return compileRowPlan(visualSearchIndexedProperties, Boolean.TRUE.equals(indexConfig.getProjectionEnabled()),
+				Boolean.TRUE.equals(indexConfig.getParallelResolutionEnabled()));
+	}
+
+	/**
+	 * Resolves the value providers of the given properties once, so that rows of a batch can be generated without any
+	 * further bean lookups.
+	 *
+	 * @param visualSearchIndexedProperties
+	 *           the indexed properties in feed column order
+	 * @return the compiled row plan
+	 * @throws VisualSearchIndexerRuntimeException
+	 *            if a value provider can't be resolved
+	 */
+	protected VisualSearchFeedRowPlan compileRowPlan(final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties)
+			throws VisualSearchIndexerRuntimeException
+	{
+		return compileRowPlan(visualSearchIndexedProperties, false);
+	}
+
+	protected VisualSearchFeedRowPlan compileRowPlan(final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties,
+			final boolean projectionEnabled) throws VisualSearchIndexerRuntimeException
+	{
+		return compileRowPlan(visualSearchIndexedProperties, projectionEnabled, false);
+	}
+
+	protected VisualSearchFeedRowPlan compileRowPlan(final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties,
+			final boolean projectionEnabled, final boolean parallelResolutionEnabled) throws VisualSearchIndexerRuntimeException
+	{
+		final Map<String, VisualSearchValueProvider> providers = new HashMap<>();
+		final List<VisualSearchFeedRowPlan.Column> columns = new ArrayList<>(visualSearchIndexedProperties.size());
+		for (final VisualSearchIndexedPropertyModel property : visualSearchIndexedProperties)
+		{
+			final VisualSearchValueProvider provider = providers.computeIfAbsent(property.getFieldValueProvider(),
+					this::getValueProvider);
+			columns.add(new VisualSearchFeedRowPlan.Column(property, provider));
+		}
+		return new VisualSearchFeedRowPlan(columns, projectionEnabled, parallelResolutionEnabled);
+	}
+
+	protected void generateCSVHeader(final BufferedWriter writer, final VisualSearchFeedRowPlan rowPlan) throws IOException
+	{
+		writer.append(rowPlan.getHeader());
 	}
 
 	protected void generateCSVContent(final BufferedWriter writer, final Collection<ItemModel> items,
-			final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties) throws VisualSearchIndexerRuntimeException
+			final VisualSearchFeedRowPlan rowPlan) throws VisualSearchIndexerRuntimeException
 	{
-		items.forEach(item -> generateContentForItem(writer, item, visualSearchIndexedProperties));
+		generateCSVContent(writer, items, rowPlan, null);
 	}
 
-	protected void generateContentForItem(final BufferedWriter writer, final ItemModel item,
-			final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties) throws VisualSearchIndexerRuntimeException
+	/**
+	 * Generates the rows of the given items, skipping the rows rejected by the given fingerprints.
+	 *
+	 * @param fingerprints
+	 *           the fingerprints of the feed rows, may be <code>null</code>
+	 */
+	protected void generateCSVContent(final BufferedWriter writer, final Collection<ItemModel> items,
+			final VisualSearchFeedRowPlan rowPlan, final VisualSearchFeedFingerprints fingerprints)
+			throws VisualSearchIndexerRuntimeException
 	{
+		final List<ItemModel> batch = items instanceof List ? (List<ItemModel>) items : new ArrayList<>(items);
+		final String[][] bulkValues = resolveBulkValues(batch, rowPlan);
+		final String[][] values = isParallelResolution(batch, rowPlan, bulkValues)
+				? resolveValuesInParallel(batch, rowPlan, bulkValues)
+				: bulkValues;
+
 		final StringBuilder builder = new StringBuilder();
-		visualSearchIndexedProperties.forEach(property -> {
-			final VisualSearchValueProvider provider = getValueProvider(property.getFieldValueProvider());
-			final String value = provider.resolveValue(item, property);
-			builder.append(value).append(";");
-		});
+		for (int row = 0; row < batch.size(); row++)
+		{
+			builder.setLength(0);
+			generateContentForItem(writer, builder, batch.get(row), row, rowPlan, values, fingerprints);
+		}
+	}
+
+	protected boolean isParallelResolution(final List<ItemModel> items, final VisualSearchFeedRowPlan rowPlan,
+			final String[][] bulkValues)
+	{
+		return rowPlan.isParallelResolutionEnabled() && items.size() > 1
+				&& Arrays.stream(bulkValues).anyMatch(values -> values == null);
+	}
+
+	/**
+	 * Resolves the per-item columns of the given items on the fork-join pool of the indexer. Each task resolves a contiguous
+	 * range of rows in its own session. The rows are then built and written by the indexing thread like sequentially
+	 * resolved rows, with all columns taken from the returned values.
+	 * <p>
+	 * Models aren't thread safe, their attributes are loaded lazily into the model context of the session that loaded
+	 * them. Each task therefore loads the items of its range and the indexed properties again by PK in its own session, so
+	 * that neither these models nor the models they reference are shared with the indexing thread or other tasks. Value
+	 * providers of the per-item columns must not keep state of their own between calls.
+	 *
+	 * @return the values by column and row, the bulk values are kept as they are
+	 */
+	protected String[][] resolveValuesInParallel(final List<ItemModel> items, final VisualSearchFeedRowPlan rowPlan,
+			final String[][] bulkValues) throws VisualSearchIndexerRuntimeException
+	{
+		final ForkJoinPool pool = getForkJoinPool();
+		final VisualSearchSessionSnapshot sessionSnapshot = captureSession();
+		final String[][] values = new String[bulkValues.length][];
+		for (int i = 0; i < bulkValues.length; i++)
+		{
+			values[i] = bulkValues[i] != null ? bulkValues[i] : new String[items.size()];
+		}
+		final int rowsPerTask = Math.max(MIN_ROWS_PER_TASK, (items.size() + pool.getParallelism() - 1) / pool.getParallelism());
+
+		final List<Callable<Void>> tasks = new ArrayList<>();
+		for (int from = 0; from < items.size(); from += rowsPerTask)
+		{
+			final int first = from;
+			final int last = Math.min(from + rowsPerTask, items.size());
+			tasks.add(() -> {
+				runInWorkerSession(sessionSnapshot, () -> {
+					final List<VisualSearchFeedRowPlan.Column> columns = loadInWorkerSession(rowPlan).getColumns();
+					for (int row = first; row < last; row++)
+					{
+						final ItemModel item = loadInWorkerSession(items.get(row));
+						for (int i = 0; i < columns.size(); i++)
+						{
+							if (bulkValues[i] == null)
+							{
+								final VisualSearchFeedRowPlan.Column column = columns.get(i);
+								values[i][row] = column.getValueProvider().resolveValue(item, column.getProperty());
+							}
+						}
+					}
+				});
+				return null;
+			});
+		}
+
 		try
 		{
-			writer.append(builder.toString()).append('\n');
+			for (final Future<Void> result : pool.invokeAll(tasks))
+			{
+				result.get();
+			}
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new VisualSearchIndexerRuntimeException(e);
+		}
+		catch (final ExecutionException e)
+		{
+			if (e.getCause() instanceof VisualSearchIndexerRuntimeException)
+			{
+				throw (VisualSearchIndexerRuntimeException) e.getCause();
+			}
+			throw new VisualSearchIndexerRuntimeException(e.getCause());
+		}
+		return values;
+	}
+
+	protected VisualSearchSessionSnapshot captureSession()
+	{
+		return VisualSearchSessionSnapshot.capture();
+	}
+
+	protected void runInWorkerSession(final VisualSearchSessionSnapshot sessionSnapshot, final Runnable body)
+	{
+		sessionSnapshot.runInSession(body);
+	}
+
+	/**
+	 * Loads the given item again in the session of the current worker.
+	 */
+	protected <T extends ItemModel> T loadInWorkerSession(final T item)
+	{
+		return modelService.get(item.getPk());
+	}
+
+	/**
+	 * Copies the given row plan with the indexed properties loaded again in the session of the current worker.
+	 */
+	protected VisualSearchFeedRowPlan loadInWorkerSession(final VisualSearchFeedRowPlan rowPlan)
+	{
+		final List<VisualSearchFeedRowPlan.Column> columns = new ArrayList<>(rowPlan.getColumnCount());
+		for (final VisualSearchFeedRowPlan.Column column : rowPlan.getColumns())
+		{
+			columns.add(new VisualSearchFeedRowPlan.Column(loadInWorkerSession(column.getProperty()), column.getValueProvider()));
+		}
+		return new VisualSearchFeedRowPlan(columns, rowPlan.isProjectionEnabled(), rowPlan.isParallelResolutionEnabled());
+	}
+
+	protected synchronized ForkJoinPool getForkJoinPool()
+	{
+		if (forkJoinPool == null)
+		{
+			forkJoinPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+		}
+		return forkJoinPool;
+	}
+
+	/**
+	 * Resolves the columns whose value provider supports bulk resolution for the whole batch.
+	 *
+	 * @return the values by column and row, <code>null</code> for columns that are resolved item by item
+	 */
+	protected String[][] resolveBulkValues(final List<ItemModel> items, final VisualSearchFeedRowPlan rowPlan)
+			throws VisualSearchIndexerRuntimeException
+	{
+		final List<VisualSearchFeedRowPlan.Column> columns = rowPlan.getColumns();
+		final String[][] bulkValues = new String[columns.size()][];
+		if (rowPlan.isProjectionEnabled())
+		{
+			resolveProjectedValues(items, rowPlan, bulkValues);
+		}
+		for (int i = 0; i < columns.size(); i++)
+		{
+			final VisualSearchFeedRowPlan.Column column = columns.get(i);
+			if (column.isBulk() && bulkValues[i] == null)
+			{
+				bulkValues[i] = checkBulkValues(items,
+						((BulkVisualSearchValueProvider) column.getValueProvider()).resolveValues(items, column.getProperty()), column);
+			}
+		}
+		return bulkValues;
+	}
+
+	/**
+	 * Resolves all columns of a projection value provider with a single call per provider.
+	 */
+	protected void resolveProjectedValues(final List<ItemModel> items, final VisualSearchFeedRowPlan rowPlan,
+			final String[][] bulkValues) throws VisualSearchIndexerRuntimeException
+	{
+		final List<VisualSearchFeedRowPlan.Column> columns = rowPlan.getColumns();
+		final Map<ProjectionVisualSearchValueProvider, List<Integer>> columnsByProvider = new IdentityHashMap<>();
+		for (int i = 0; i < columns.size(); i++)
+		{
+			final VisualSearchFeedRowPlan.Column column = columns.get(i);
+			if (column.isProjection())
+			{
+				columnsByProvider
+						.computeIfAbsent((ProjectionVisualSearchValueProvider) column.getValueProvider(), provider -> new ArrayList<>())
+						.add(Integer.valueOf(i));
+			}
+		}
+
+		for (final Map.Entry<ProjectionVisualSearchValueProvider, List<Integer>> entry : columnsByProvider.entrySet())
+		{
+			final List<VisualSearchIndexedPropertyModel> properties = entry.getValue().stream()
+					.map(i -> columns.get(i.intValue()).getProperty()).collect(Collectors.toList());
+			final Map<VisualSearchIndexedPropertyModel, String[]> values = entry.getKey().resolveProjectedValues(items, properties);
+			for (final Integer i : entry.getValue())
+			{
+				final VisualSearchFeedRowPlan.Column column = columns.get(i.intValue());
+				bulkValues[i.intValue()] = checkBulkValues(items, values.get(column.getProperty()), column);
+			}
+		}
+	}
+
+	protected String[] checkBulkValues(final List<ItemModel> items, final String[] values,
+			final VisualSearchFeedRowPlan.Column column) throws VisualSearchIndexerRuntimeException
+	{
+		if (values == null || values.length != items.size())
+		{
+			throw new VisualSearchIndexerRuntimeException(
+					"Bulk value provider returned an unexpected number of values: " + column.getProperty().getFieldValueProvider());
+		}
+		return values;
+	}
+
+	protected void generateContentForItem(final BufferedWriter writer, final StringBuilder builder, final ItemModel item,
+			final int row, final VisualSearchFeedRowPlan rowPlan, final String[][] bulkValues,
+			final VisualSearchFeedFingerprints fingerprints) throws VisualSearchIndexerRuntimeException
+	{
+		buildRow(builder, item, row, rowPlan, bulkValues);
+		writeRow(writer, item, builder, fingerprints);
+	}
+
+	protected void buildRow(final StringBuilder builder, final ItemModel item, final int row,
+			final VisualSearchFeedRowPlan rowPlan, final String[][] bulkValues) throws VisualSearchIndexerRuntimeException
+	{
+		final List<VisualSearchFeedRowPlan.Column> columns = rowPlan.getColumns();
+		for (int i = 0; i < columns.size(); i++)
+		{
+			final String value;
+			if (bulkValues[i] != null)
+			{
+				value = bulkValues[i][row];
+			}
+			else
+			{
+				final VisualSearchFeedRowPlan.Column column = columns.get(i);
+				value = column.getValueProvider().resolveValue(item, column.getProperty());
+			}
+			builder.append(value).append(';');
+		}
+		builder.append('\n');
+	}
+
+	protected void writeRow(final BufferedWriter writer, final ItemModel item, final CharSequence row,
+			final VisualSearchFeedFingerprints fingerprints) throws VisualSearchIndexerRuntimeException
+	{
+		if (fingerprints != null && !fingerprints.accept(item, row))
+		{
+			return;
+		}
+		try
+		{
+			writer.append(row);
 		}
 		catch (final IOException e)
 		{
@@ -160,6 +663,38 @@ public class DefaultVisualSearchIndexer implements VisualSearchIndexer, Applicat
 		this.applicationContext = applicationContext;
 	}
 
+	@Override
+	public synchronized void destroy()
+	{
+		if (forkJoinPool != null)
+		{
+			forkJoinPool.shutdownNow();
+			forkJoinPool = null;
+		}
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+
+	public void setParallelism(final int parallelism)
+	{
+		this.parallelism = parallelism;
+	}
+
+	public void setSpillBufferSize(final int spillBufferSize)
+	{
+		this.spillBufferSize = spillBufferSize;
+	}
+
+	@Required
+	public void setVisualSearchRowFingerprintService(final VisualSearchRowFingerprintService visualSearchRowFingerprintService)
+	{
+		this.visualSearchRowFingerprintService = visualSearchRowFingerprintService;
+	}
+
 	@Required
 	public void setSshdPool(final VisualSearchSSHDPool sshdPool)
 	{
@@ -13,7 +13,9 @@ import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.search.SearchResult;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.VisualSearchIndexer;
+import de.hybris.platform.visualsearch.indexer.VisualSearchRowFingerprintService;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRuntimeException;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
@@ -29,6 +31,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import org.apache.log4j.Logger;
 import org.springframework.beans.BeansException;
@@ -43,10 +46,13 @@ public class DefaultVisualSearchIndexerBatchProcessor implements SimpleBatchProc
 
 	private static final String PARAMETER_NAME = "name";
 	public static final String VS_FILE_PREFIX = "datafeed";
+	public static final String VS_UPDATE_FILE_PREFIX = VS_FILE_PREFIX + "_update";
+	public static final String VS_DELETE_FILE_PREFIX = VS_FILE_PREFIX + "_delete";
 
 	private GenericDao<VisualSearchConfigModel> visualSearchConfigGenericDao;
 	private FlexibleSearchService flexibleSearchService;
 	private VisualSearchIndexer visualSearchIndexer;
+	private VisualSearchRowFingerprintService visualSearchRowFingerprintService;
 
 	private final AtomicInteger counter = new AtomicInteger(1);
 
@@ -61,41 +67,67 @@ public class DefaultVisualSearchIndexerBatchProcessor implements SimpleBatchProc
 			final VisualSearchConfigModel visualSearchConfig = getVisualSearchConfig(
 					distributedProcessModel.getVisualSearchConfig());
 			final long indexOperationId = distributedProcessModel.getIndexOperationId();
+			final VisualSearchIndexerOperation indexerOperation = resolveIndexerOperation(distributedProcessModel);
 			final List<PK> pks = asList(inputBatch.getContext());
 
 			final List<ItemModel> items = getItems(visualSearchConfig, pks);
-			final String filePath = distributedProcessModel.getExportPath() + File.separator + resolveFileName(indexOperationId);
-
-			visualSearchIndexer.generateDataFeed(items, visualSearchConfig, filePath);
-
-			final int maxBatchRetries = visualSearchConfig.getIndexConfig().getMaxBatchRetries();
-
-			try
+			if (Boolean.TRUE.equals(visualSearchConfig.getIndexConfig().getStreamingEnabled()))
 			{
-				visualSearchIndexer.uploadDataFeed(filePath, visualSearchConfig);
+				visualSearchIndexer.streamDataFeed(items, visualSearchConfig, indexerOperation,
+						resolveFileName(indexOperationId, indexerOperation, visualSearchConfig.getIndexConfig()));
 			}
-			catch (final VisualSearchIndexerException e)
+			else
 			{
-				retryUpload(filePath, visualSearchConfig, maxBatchRetries);
+				processDataFeedFile(items, visualSearchConfig, distributedProcessModel.getExportPath(), indexOperationId,
+						indexerOperation);
 			}
+		}
+		catch (final VisualSearchIndexerException | SystemException | BeansException e)
+		{
+			throw new VisualSearchIndexerRuntimeException(e);
+		}
+		catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	protected void processDataFeedFile(final List<ItemModel> items, final VisualSearchConfigModel visualSearchConfig,
+			final String exportPath, final long indexOperationId, final VisualSearchIndexerOperation indexerOperation)
+			throws VisualSearchIndexerException, InterruptedException
+	{
+		final String filePath = exportPath + File.separator
+				+ resolveFileName(indexOperationId, indexerOperation, visualSearchConfig.getIndexConfig());
 
+		visualSearchIndexer.generateDataFeed(items, visualSearchConfig, indexerOperation, filePath);
+
+		final int maxBatchRetries = visualSearchConfig.getIndexConfig().getMaxBatchRetries();
+
+		try
+		{
+			visualSearchIndexer.uploadDataFeed(filePath, visualSearchConfig);
+		}
+		catch (final VisualSearchIndexerException e)
+		{
 			try
 			{
-				Files.deleteIfExists(Paths.get(filePath));
+				retryUpload(filePath, visualSearchConfig, maxBatchRetries);
 			}
-			catch (final IOException e)
+			catch (final VisualSearchIndexerException retryException)
 			{
-				LOG.error(String.format("File [%s] cannot be deleted!", filePath), e);
+				// fingerprints are stored on generation, rows of a feed that never arrived must be exported again
+				removeFingerprints(items, visualSearchConfig);
+				throw retryException;
 			}
-
 		}
-		catch (final VisualSearchIndexerException | SystemException | BeansException e)
+
+		try
 		{
-			throw new VisualSearchIndexerRuntimeException(e);
+			Files.deleteIfExists(Paths.get(filePath));
 		}
-		catch (final InterruptedException e)
+		catch (final IOException e)
 		{
-			Thread.currentThread().interrupt();
+			LOG.error(String.format("File [%s] cannot be deleted!", filePath), e);
 		}
 	}
 
@@ -124,6 +156,15 @@ public class DefaultVisualSearchIndexerBatchProcessor implements SimpleBatchProc
 
 	}
 
+	protected void removeFingerprints(final List<ItemModel> items, final VisualSearchConfigModel visualSearchConfig)
+	{
+		if (Boolean.TRUE.equals(visualSearchConfig.getIndexConfig().getFingerprintEnabled()))
+		{
+			visualSearchRowFingerprintService.removeFingerprints(visualSearchConfig,
+					items.stream().map(ItemModel::getPk).collect(Collectors.toList()));
+		}
+	}
+
 	protected VisualSearchConfigModel getVisualSearchConfig(final String name)
 	{
 		final Map<String, Object> paramMap = new HashMap<String, Object>();
@@ -144,9 +185,31 @@ public class DefaultVisualSearchIndexerBatchProcessor implements SimpleBatchProc
 		return (List<PK>) ctx;
 	}
 
-	protected String resolveFileName(final long operationId)
+	protected VisualSearchIndexerOperation resolveIndexerOperation(
+			final VisualSearchIndexerDistributedProcessModel distributedProcessModel)
 	{
-		return VS_FILE_PREFIX + "_" + String.valueOf(operationId) + "_" + String.valueOf(counter.getAndIncrement()) + ".csv";
+		final VisualSearchIndexerOperation indexerOperation = distributedProcessModel.getIndexerOperation();
+		return indexerOperation == null ? VisualSearchIndexerOperation.FULL : indexerOperation;
+	}
+
+	protected String resolveFileName(final long operationId, final VisualSearchIndexerOperation indexerOperation,
+			final VisualSearchIndexConfigModel indexConfig)
+	{
+		return resolveFilePrefix(indexerOperation) + "_" + String.valueOf(operationId) + "_" + String.valueOf(counter.getAndIncrement())
+				+ VisualSearchFeedCompressionUtils.getFileExtension(indexConfig);
+	}
+
+	protected String resolveFilePrefix(final VisualSearchIndexerOperation indexerOperation)
+	{
+		switch (indexerOperation)
+		{
+			case UPDATE:
+				return VS_UPDATE_FILE_PREFIX;
+			case DELETE:
+				return VS_DELETE_FILE_PREFIX;
+			default:
+				return VS_FILE_PREFIX;
+		}
 	}
 
 	protected List<ItemModel> getItems(final VisualSearchConfigModel visualSearchConfig, final List<PK> pks)
@@ -181,4 +244,10 @@ public class DefaultVisualSearchIndexerBatchProcessor implements SimpleBatchProc
 		this.visualSearchIndexer = visualSearchIndexer;
 	}
 
+	@Required
+	public void setVisualSearchRowFingerprintService(final VisualSearchRowFingerprintService visualSearchRowFingerprintService)
+	{
+		this.visualSearchRowFingerprintService = visualSearchRowFingerprintService;
+	}
+
 }
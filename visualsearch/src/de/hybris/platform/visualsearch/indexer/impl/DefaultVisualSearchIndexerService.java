@@ -16,18 +16,22 @@ import de.hybris.platform.servicelayer.session.Session;
 import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.tenant.TenantService;
 import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.enums.VisualSearchSyncResult;
 import de.hybris.platform.visualsearch.indexer.VisualSearchIndexerService;
+import de.hybris.platform.visualsearch.indexer.VisualSearchRowFingerprintService;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.indexer.strategies.VisualSearchIndexerStrategy;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
 import de.hybris.platform.visualsearch.model.VisualSearchIndexConfigModel;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.List;
+import java.util.Map;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.util.StopWatch;
@@ -43,9 +47,19 @@ public class DefaultVisualSearchIndexerService implements VisualSearchIndexerSer
 	private UserService userService;
 	private FlexibleSearchService flexibleSearchService;
 	private VisualSearchIndexerStrategy visualSearchIndexerStrategy;
+	private VisualSearchRowFingerprintService visualSearchRowFingerprintService;
+
+	private static final String LAST_INDEX_TIME_PARAM = "lastIndexTime";
 
 	@Override
 	public void performVisualSearchIndex(final VisualSearchConfigModel visualSearchConfig) throws VisualSearchIndexerException
+	{
+		performVisualSearchIndex(visualSearchConfig, VisualSearchIndexerOperation.FULL);
+	}
+
+	@Override
+	public void performVisualSearchIndex(final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation) throws VisualSearchIndexerException
 	{
 		if (visualSearchConfig == null)
 		{
@@ -58,6 +72,7 @@ public class DefaultVisualSearchIndexerService implements VisualSearchIndexerSer
 
 		final StopWatch operationTimer = new StopWatch();
 		operationTimer.start();
+		final Date indexStartTime = new Date();
 
 		logStrategyStart(visualSearchConfig.getName());
 
@@ -70,8 +85,25 @@ public class DefaultVisualSearchIndexerService implements VisualSearchIndexerSer
 			modelService.save(visualSearchConfig);
 			userService.setCurrentUser(visualSearchConfig.getIndexConfig().getUser());
 
-			final List<PK> pks = resolvePks(visualSearchConfig.getIndexConfig());
-			visualSearchIndexerStrategy.execute(visualSearchConfig, pks);
+			final VisualSearchIndexConfigModel indexConfig = visualSearchConfig.getIndexConfig();
+			if (isUpdate(visualSearchConfig, indexerOperation))
+			{
+				final Map<String, Object> queryParameters = Collections.singletonMap(LAST_INDEX_TIME_PARAM,
+						visualSearchConfig.getLastIndexTime());
+				final Collection<PK> pks = resolvePks(indexConfig, indexConfig.getUpdateQuery(), queryParameters);
+				final Collection<PK> deletePks = StringUtils.isBlank(indexConfig.getDeleteQuery()) ? Collections.emptyList()
+						: resolvePks(indexConfig, indexConfig.getDeleteQuery(), queryParameters);
+				visualSearchIndexerStrategy.execute(visualSearchConfig, pks, deletePks);
+			}
+			else
+			{
+				final Collection<PK> pks = resolvePks(indexConfig);
+				visualSearchIndexerStrategy.execute(visualSearchConfig, pks);
+			}
+			removeOrphanedFingerprints(visualSearchConfig);
+
+			visualSearchConfig.setLastIndexTime(indexStartTime);
+			modelService.save(visualSearchConfig);
 
 			operationTimer.stop();
 			logStrategySuccess(operationTimer, visualSearchConfig.getName());
@@ -93,6 +125,32 @@ public class DefaultVisualSearchIndexerService implements VisualSearchIndexerSer
 
 	}
 
+	protected boolean isUpdate(final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation)
+	{
+		if (!VisualSearchIndexerOperation.UPDATE.equals(indexerOperation))
+		{
+			return false;
+		}
+		if (visualSearchConfig.getLastIndexTime() == null || StringUtils.isBlank(visualSearchConfig.getIndexConfig().getUpdateQuery()))
+		{
+			LOG.info("No previous indexing or no update query on " + visualSearchConfig.getName() + ", performing full indexing.");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Drops the fingerprints of products removed from the database, which are never part of a delete feed.
+	 */
+	protected void removeOrphanedFingerprints(final VisualSearchConfigModel visualSearchConfig)
+	{
+		if (Boolean.TRUE.equals(visualSearchConfig.getIndexConfig().getFingerprintEnabled()))
+		{
+			visualSearchRowFingerprintService.removeOrphanedFingerprints(visualSearchConfig);
+		}
+	}
+
 	protected void checkIfTheProcessIsAlreadyRunning(final VisualSearchConfigModel visualSearchConfig)
 			throws VisualSearchIndexerException
 	{
@@ -176,12 +234,24 @@ public class DefaultVisualSearchIndexerService implements VisualSearchIndexerSer
 		jaloSession.removeLocalSessionContext();
 	}
 
-	protected List<PK> resolvePks(final VisualSearchIndexConfigModel visualSearchIndexConfig) throws VisualSearchIndexerException
+	protected Collection<PK> resolvePks(final VisualSearchIndexConfigModel visualSearchIndexConfig)
+			throws VisualSearchIndexerException
+	{
+		return resolvePks(visualSearchIndexConfig, visualSearchIndexConfig.getQuery(), Collections.emptyMap());
+	}
+
+	protected Collection<PK> resolvePks(final VisualSearchIndexConfigModel visualSearchIndexConfig, final String query,
+			final Map<String, Object> queryParameters) throws VisualSearchIndexerException
 	{
+		if (visualSearchIndexConfig.getPkPageSize() > 0)
+		{
+			return new VisualSearchKeysetPkCollection(flexibleSearchService, visualSearchIndexConfig, query, queryParameters,
+					visualSearchIndexConfig.getPkPageSize());
+		}
+
 		try
 		{
-			final String query = visualSearchIndexConfig.getQuery();
-			final FlexibleSearchQuery fsQuery = new FlexibleSearchQuery(query);
+			final FlexibleSearchQuery fsQuery = new FlexibleSearchQuery(query, queryParameters);
 			fsQuery.setUser(visualSearchIndexConfig.getUser());
 			fsQuery.setCatalogVersions(Collections.singleton(visualSearchIndexConfig.getCatalogVersion()));
 			fsQuery.setResultClassList(Arrays.asList(PK.class));
@@ -230,4 +300,9 @@ public class DefaultVisualSearchIndexerService implements VisualSearchIndexerSer
 		this.modelService = modelService;
 	}
 
+	@Required
+	public void setVisualSearchRowFingerprintService(final VisualSearchRowFingerprintService visualSearchRowFingerprintService)
+	{
+		this.visualSearchRowFingerprintService = visualSearchRowFingerprintService;
+	}
 }
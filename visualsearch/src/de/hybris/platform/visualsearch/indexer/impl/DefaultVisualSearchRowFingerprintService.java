@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.visualsearch.indexer.VisualSearchRowFingerprintService;
+import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
+import de.hybris.platform.visualsearch.model.VisualSearchRowFingerprintModel;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Required;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+
+/**
+ * Default implementation of {@link VisualSearchRowFingerprintService}. The fingerprints are 64 bit murmur3 hashes,
+ * stored as {@link VisualSearchRowFingerprintModel} items and read with one query per 1000 products.
+ */
+public class DefaultVisualSearchRowFingerprintService implements VisualSearchRowFingerprintService
+{
+	protected static final int MAX_IN_CLAUSE_SIZE = 1000;
+
+	private static final String CONFIG_PARAM = "visualSearchConfig";
+	private static final String PKS_PARAM = "pks";
+	private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+	private FlexibleSearchService flexibleSearchService;
+	private ModelService modelService;
+
+	@Override
+	public long computeFingerprint(final CharSequence row)
+	{
+		return HASH_FUNCTION.hashString(row, StandardCharsets.UTF_8).asLong();
+	}
+
+	@Override
+	public Map<PK, Long> getFingerprints(final VisualSearchConfigModel visualSearchConfig, final Collection<PK> pks)
+	{
+		final String query = "SELECT {" + VisualSearchRowFingerprintModel.PRODUCTPK + "}, {"
+				+ VisualSearchRowFingerprintModel.FINGERPRINT + "} FROM {" + VisualSearchRowFingerprintModel._TYPECODE
+				+ "} WHERE {" + VisualSearchRowFingerprintModel.VISUALSEARCHCONFIG + "} = ?" + CONFIG_PARAM + " AND {"
+				+ VisualSearchRowFingerprintModel.PRODUCTPK + "} IN (?" + PKS_PARAM + ")";
+
+		final Map<PK, Long> fingerprints = new HashMap<>();
+		for (final List<Long> productPks : partition(pks))
+		{
+			final FlexibleSearchQuery fsQuery = new FlexibleSearchQuery(query);
+			fsQuery.addQueryParameter(CONFIG_PARAM, visualSearchConfig);
+			fsQuery.addQueryParameter(PKS_PARAM, productPks);
+			fsQuery.setResultClassList(Arrays.asList(Long.class, Long.class));
+
+			final SearchResult<List<Long>> result = flexibleSearchService.search(fsQuery);
+			for (final List<Long> resultRow : result.getResult())
+			{
+				fingerprints.put(PK.fromLong(resultRow.get(0).longValue()), resultRow.get(1));
+			}
+		}
+		return fingerprints;
+	}
+
+	@Override
+	public void saveFingerprints(final VisualSearchConfigModel visualSearchConfig, final Map<PK, Long> fingerprints)
+	{
+		if (fingerprints.isEmpty())
+		{
+			return;
+		}
+
+		final Map<Long, VisualSearchRowFingerprintModel> existingModels = findModels(visualSearchConfig, fingerprints.keySet())
+				.stream().collect(Collectors.toMap(model -> Long.valueOf(model.getProductPk()), model -> model));
+
+		final List<VisualSearchRowFingerprintModel> models = new ArrayList<>(fingerprints.size());
+		for (final Map.Entry<PK, Long> entry : fingerprints.entrySet())
+		{
+			VisualSearchRowFingerprintModel model = existingModels.get(Long.valueOf(entry.getKey().getLongValue()));
+			if (model == null)
+			{
+				model = modelService.create(VisualSearchRowFingerprintModel.class);
+				model.setVisualSearchConfig(visualSearchConfig);
+				model.setProductPk(entry.getKey().getLongValue());
+			}
+			model.setFingerprint(entry.getValue().longValue());
+			models.add(model);
+		}
+		modelService.saveAll(models);
+	}
+
+	@Override
+	public void removeFingerprints(final VisualSearchConfigModel visualSearchConfig, final Collection<PK> pks)
+	{
+		final List<VisualSearchRowFingerprintModel> models = findModels(visualSearchConfig, pks);
+		if (!models.isEmpty())
+		{
+			modelService.removeAll(models);
+		}
+	}
+
+	@Override
+	public void removeOrphanedFingerprints(final VisualSearchConfigModel visualSearchConfig)
+	{
+		final String query = "SELECT {f." + VisualSearchRowFingerprintModel.PK + "} FROM {"
+				+ VisualSearchRowFingerprintModel._TYPECODE + " AS f} WHERE {f." + VisualSearchRowFingerprintModel.VISUALSEARCHCONFIG
+				+ "} = ?" + CONFIG_PARAM + " AND NOT EXISTS ({{SELECT {p." + ProductModel.PK + "} FROM {" + ProductModel._TYPECODE
+				+ " AS p} WHERE {p." + ProductModel.PK + "} = {f." + VisualSearchRowFingerprintModel.PRODUCTPK + "}}})";
+
+		final FlexibleSearchQuery fsQuery = new FlexibleSearchQuery(query);
+		fsQuery.addQueryParameter(CONFIG_PARAM, visualSearchConfig);
+
+		final SearchResult<VisualSearchRowFingerprintModel> result = flexibleSearchService.search(fsQuery);
+		if (!result.getResult().isEmpty())
+		{
+			modelService.removeAll(result.getResult());
+		}
+	}
+
+	protected List<VisualSearchRowFingerprintModel> findModels(final VisualSearchConfigModel visualSearchConfig,
+			final Collection<PK> pks)
+	{
+		final String query = "SELECT {" + VisualSearchRowFingerprintModel.PK + "} FROM {"
+				+ VisualSearchRowFingerprintModel._TYPECODE + "} WHERE {" + VisualSearchRowFingerprintModel.VISUALSEARCHCONFIG
+				+ "} = ?" + CONFIG_PARAM + " AND {" + VisualSearchRowFingerprintModel.PRODUCTPK + "} IN (?" + PKS_PARAM + ")";
+
+		final List<VisualSearchRowFingerprintModel> models = new ArrayList<>();
+		for (final List<Long> productPks : partition(pks))
+		{
+			final FlexibleSearchQuery fsQuery = new FlexibleSearchQuery(query);
+			fsQuery.addQueryParameter(CONFIG_PARAM, visualSearchConfig);
+			fsQuery.addQueryParameter(PKS_PARAM, productPks);
+
+			final SearchResult<VisualSearchRowFingerprintModel> result = flexibleSearchService.search(fsQuery);
+			models.addAll(result.getResult());
+		}
+		return models;
+	}
+
+	protected List<List<Long>> partition(final Collection<PK> pks)
+	{
+		final List<Long> productPks = pks.stream().map(pk -> Long.valueOf(pk.getLongValue())).collect(Collectors.toList());
+		return Lists.partition(productPks, MAX_IN_CLAUSE_SIZE);
+	}
+
+	@Required
+	public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService)
+	{
+		this.flexibleSearchService = flexibleSearchService;
+	}
+
+	@Required
+	public void setModelService(final ModelService modelService)
+	{
+		this.modelService = modelService;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import de.hybris.platform.visualsearch.enums.VisualSearchFeedCompression;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexConfigModel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+
+/**
+ * Streaming compression of data feeds, as configured on the {@link VisualSearchIndexConfigModel}.
+ */
+public final class VisualSearchFeedCompressionUtils
+{
+	public static final String CSV_EXTENSION = ".csv";
+	public static final String GZIP_EXTENSION = ".gz";
+	public static final String ZSTD_EXTENSION = ".zst";
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private VisualSearchFeedCompressionUtils()
+	{
+		// utility class
+	}
+
+	public static VisualSearchFeedCompression getCompression(final VisualSearchIndexConfigModel indexConfig)
+	{
+		return indexConfig.getFeedCompression() == null ? VisualSearchFeedCompression.NONE : indexConfig.getFeedCompression();
+	}
+
+	/**
+	 * @return the file extension of data feeds, including the extension of the compression codec
+	 */
+	public static String getFileExtension(final VisualSearchIndexConfigModel indexConfig)
+	{
+		switch (getCompression(indexConfig))
+		{
+			case GZIP:
+				return CSV_EXTENSION + GZIP_EXTENSION;
+			case ZSTD:
+				return CSV_EXTENSION + ZSTD_EXTENSION;
+			default:
+				return CSV_EXTENSION;
+		}
+	}
+
+	/**
+	 * Wraps the given stream with a compressing stream. Closing the returned stream finishes the compressed content and
+	 * closes the given stream.
+	 */
+	public static OutputStream compress(final OutputStream outputStream, final VisualSearchIndexConfigModel indexConfig)
+			throws IOException
+	{
+		final Integer level = indexConfig.getFeedCompressionLevel();
+		switch (getCompression(indexConfig))
+		{
+			case GZIP:
+				return new GZIPOutputStream(outputStream, BUFFER_SIZE)
+				{
+					{
+						if (level != null)
+						{
+							def.setLevel(level.intValue());
+						}
+					}
+				};
+			case ZSTD:
+				return level == null ? new ZstdOutputStream(outputStream) : new ZstdOutputStream(outputStream, level.intValue());
+			default:
+				return outputStream;
+		}
+	}
+}
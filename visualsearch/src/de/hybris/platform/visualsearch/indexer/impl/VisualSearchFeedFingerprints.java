@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.visualsearch.indexer.VisualSearchRowFingerprintService;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Fingerprints of the rows of a single data feed. Rows whose fingerprint equals the one of the last export can be
+ * skipped, the fingerprints of all other rows are collected to be stored once the feed has been delivered.
+ */
+public class VisualSearchFeedFingerprints
+{
+	private final VisualSearchRowFingerprintService fingerprintService;
+	private final Map<PK, Long> previousFingerprints;
+	private final boolean skipUnchanged;
+	private final Map<PK, Long> changedFingerprints = new HashMap<>();
+
+	public VisualSearchFeedFingerprints(final VisualSearchRowFingerprintService fingerprintService,
+			final Map<PK, Long> previousFingerprints, final boolean skipUnchanged)
+	{
+		this.fingerprintService = fingerprintService;
+		this.previousFingerprints = previousFingerprints;
+		this.skipUnchanged = skipUnchanged;
+	}
+
+	/**
+	 * @param item
+	 *           the exported item
+	 * @param row
+	 *           the generated row of the item
+	 * @return <code>false</code> if the row has not changed since the last export and can be skipped
+	 */
+	public boolean accept(final ItemModel item, final CharSequence row)
+	{
+		final Long fingerprint = Long.valueOf(fingerprintService.computeFingerprint(row));
+		if (fingerprint.equals(previousFingerprints.get(item.getPk())))
+		{
+			return !skipUnchanged;
+		}
+		changedFingerprints.put(item.getPk(), fingerprint);
+		return true;
+	}
+
+	/**
+	 * @return the fingerprints of the rows that have changed since the last export
+	 */
+	public Map<PK, Long> getChangedFingerprints()
+	{
+		return Collections.unmodifiableMap(changedFingerprints);
+	}
+}
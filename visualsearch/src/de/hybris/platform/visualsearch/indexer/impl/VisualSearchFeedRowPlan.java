@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import de.hybris.platform.visualsearch.indexer.providers.BulkVisualSearchValueProvider;
+import de.hybris.platform.visualsearch.indexer.providers.ProjectionVisualSearchValueProvider;
+import de.hybris.platform.visualsearch.indexer.providers.VisualSearchValueProvider;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Immutable description of a data feed row. It is compiled once per batch and holds the columns in feed order together
+ * with their resolved value providers and parameters, so that generating a row doesn't need any bean lookups.
+ */
+public class VisualSearchFeedRowPlan
+{
+	private final List<Column> columns;
+	private final String header;
+	private final boolean projectionEnabled;
+	private final boolean parallelResolutionEnabled;
+
+	public VisualSearchFeedRowPlan(final List<Column> columns)
+	{
+		this(columns, false);
+	}
+
+	public VisualSearchFeedRowPlan(final List<Column> columns, final boolean projectionEnabled)
+	{
+		this(columns, projectionEnabled, false);
+	}
+
+	public VisualSearchFeedRowPlan(final List<Column> columns, final boolean projectionEnabled,
+			final boolean parallelResolutionEnabled)
+	{
+		this.columns = Collections.unmodifiableList(new ArrayList<>(columns));
+		this.projectionEnabled = projectionEnabled;
+		this.parallelResolutionEnabled = parallelResolutionEnabled;
+
+		final StringBuilder builder = new StringBuilder();
+		this.columns.forEach(column -> builder.append(column.getProperty().getDisplayName()).append(';'));
+		builder.append('\n');
+		this.header = builder.toString();
+	}
+
+	public List<Column> getColumns()
+	{
+		return columns;
+	}
+
+	public int getColumnCount()
+	{
+		return columns.size();
+	}
+
+	public String getHeader()
+	{
+		return header;
+	}
+
+	/**
+	 * @return <code>true</code> if columns of projection value providers are resolved together with one call per
+	 *         provider
+	 */
+	public boolean isProjectionEnabled()
+	{
+		return projectionEnabled;
+	}
+
+	/**
+	 * @return <code>true</code> if the columns that are resolved item by item are resolved for several items in parallel
+	 */
+	public boolean isParallelResolutionEnabled()
+	{
+		return parallelResolutionEnabled;
+	}
+
+	/**
+	 * Single column of a {@link VisualSearchFeedRowPlan}.
+	 */
+	public static class Column
+	{
+		private final VisualSearchIndexedPropertyModel property;
+		private final VisualSearchValueProvider valueProvider;
+		private final Map<String, String> parameters;
+
+		public Column(final VisualSearchIndexedPropertyModel property, final VisualSearchValueProvider valueProvider)
+		{
+			this.property = property;
+			this.valueProvider = valueProvider;
+			this.parameters = property.getValueProviderParameters() == null ? Collections.emptyMap()
+					: Collections.unmodifiableMap(new HashMap<>(property.getValueProviderParameters()));
+		}
+
+		public VisualSearchIndexedPropertyModel getProperty()
+		{
+			return property;
+		}
+
+		public VisualSearchValueProvider getValueProvider()
+		{
+			return valueProvider;
+		}
+
+		public Map<String, String> getParameters()
+		{
+			return parameters;
+		}
+
+		public boolean isBulk()
+		{
+			return valueProvider instanceof BulkVisualSearchValueProvider;
+		}
+
+		public boolean isProjection()
+		{
+			return valueProvider instanceof ProjectionVisualSearchValueProvider;
+		}
+	}
+}
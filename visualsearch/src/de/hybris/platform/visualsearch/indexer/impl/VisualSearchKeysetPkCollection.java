@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexConfigModel;
+
+import java.util.AbstractCollection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+
+/**
+ * Read-only collection of the PKs selected by the query of an index configuration. The PKs are not held in memory, every
+ * iteration pages through the result in PK order, using the last PK of a page as lower bound of the next one (keyset
+ * pagination). Only one page is loaded at a time, however big the result is.
+ * <p>
+ * The configured query is used as a sub query, so it must select product PKs and must not contain an ORDER BY clause.
+ * The same applies to the update and delete queries, which can be paged with the same collection.
+ */
+public class VisualSearchKeysetPkCollection extends AbstractCollection<PK>
+{
+	private static final String LAST_PK_PARAM = "lastPk";
+
+	private final FlexibleSearchService flexibleSearchService;
+	private final VisualSearchIndexConfigModel indexConfig;
+	private final String query;
+	private final Map<String, Object> queryParameters;
+	private final int pageSize;
+	private Integer size;
+
+	public VisualSearchKeysetPkCollection(final FlexibleSearchService flexibleSearchService,
+			final VisualSearchIndexConfigModel indexConfig, final int pageSize)
+	{
+		this(flexibleSearchService, indexConfig, indexConfig.getQuery(), Collections.emptyMap(), pageSize);
+	}
+
+	public VisualSearchKeysetPkCollection(final FlexibleSearchService flexibleSearchService,
+			final VisualSearchIndexConfigModel indexConfig, final String query, final Map<String, Object> queryParameters,
+			final int pageSize)
+	{
+		if (pageSize <= 0)
+		{
+			throw new IllegalArgumentException("Page size must be greater than 0");
+		}
+		this.flexibleSearchService = flexibleSearchService;
+		this.indexConfig = indexConfig;
+		this.query = query;
+		this.queryParameters = Collections.unmodifiableMap(new HashMap<>(queryParameters));
+		this.pageSize = pageSize;
+	}
+
+	@Override
+	public Iterator<PK> iterator()
+	{
+		return new PageIterator();
+	}
+
+	@Override
+	public int size()
+	{
+		if (size == null)
+		{
+			final FlexibleSearchQuery fsQuery = createQuery(
+					"SELECT COUNT({" + ProductModel.PK + "}) FROM {" + ProductModel._TYPECODE + "} WHERE {" + ProductModel.PK
+							+ "} IN ({{ " + query + " }})");
+			fsQuery.setResultClassList(Collections.singletonList(Integer.class));
+			final SearchResult<Integer> result = flexibleSearchService.search(fsQuery);
+			size = result.getResult().get(0);
+		}
+		return size.intValue();
+	}
+
+	/**
+	 * Checks for a first PK instead of counting the whole result.
+	 */
+	@Override
+	public boolean isEmpty()
+	{
+		if (size != null)
+		{
+			return size.intValue() == 0;
+		}
+		return loadPage(PK.NULL_PK, 1).isEmpty();
+	}
+
+	protected List<PK> loadPage(final PK lastPk)
+	{
+		return loadPage(lastPk, pageSize);
+	}
+
+	protected List<PK> loadPage(final PK lastPk, final int count)
+	{
+		final FlexibleSearchQuery fsQuery = createQuery("SELECT {" + ProductModel.PK + "} FROM {" + ProductModel._TYPECODE
+				+ "} WHERE {" + ProductModel.PK + "} IN ({{ " + query + " }}) AND {" + ProductModel.PK + "} > ?"
+				+ LAST_PK_PARAM + " ORDER BY {" + ProductModel.PK + "} ASC");
+		fsQuery.addQueryParameter(LAST_PK_PARAM, lastPk);
+		fsQuery.setResultClassList(Collections.singletonList(PK.class));
+		fsQuery.setCount(count);
+		final SearchResult<PK> result = flexibleSearchService.search(fsQuery);
+		return result.getResult();
+	}
+
+	protected FlexibleSearchQuery createQuery(final String pagedQuery)
+	{
+		final FlexibleSearchQuery fsQuery = new FlexibleSearchQuery(pagedQuery);
+		fsQuery.addQueryParameters(queryParameters);
+		fsQuery.setUser(indexConfig.getUser());
+		fsQuery.setCatalogVersions(Collections.singleton(indexConfig.getCatalogVersion()));
+		return fsQuery;
+	}
+
+	protected class PageIterator implements Iterator<PK>
+	{
+		private List<PK> page = Collections.emptyList();
+		private int position;
+		private PK lastPk = PK.NULL_PK;
+		private boolean lastPage;
+
+		@Override
+		public boolean hasNext()
+		{
+			if (position < page.size())
+			{
+				return true;
+			}
+			if (lastPage)
+			{
+				return false;
+			}
+
+			page = loadPage(lastPk);
+			position = 0;
+			lastPage = page.size() < pageSize;
+			if (!page.isEmpty())
+			{
+				lastPk = page.get(page.size() - 1);
+			}
+			return !page.isEmpty();
+		}
+
+		@Override
+		public PK next()
+		{
+			if (!hasNext())
+			{
+				throw new NoSuchElementException();
+			}
+			return page.get(position++);
+		}
+	}
+}
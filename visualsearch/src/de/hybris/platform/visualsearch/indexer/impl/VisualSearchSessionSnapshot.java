@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import de.hybris.platform.core.Registry;
+import de.hybris.platform.core.Tenant;
+import de.hybris.platform.jalo.JaloSession;
+import de.hybris.platform.jalo.SessionContext;
+import de.hybris.platform.jalo.c2l.Currency;
+import de.hybris.platform.jalo.c2l.Language;
+import de.hybris.platform.jalo.user.User;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TimeZone;
+
+
+/**
+ * Tenant and session of the indexing thread, captured to be applied to worker threads. A worker gets its own session,
+ * since a session must not be shared between threads. The session gets the same user, language, currency and time zone
+ * and a copy of all session attributes, which include the session catalog versions, the search restriction flag and the
+ * localization fallback, so that value providers see the same session state as in the indexing thread.
+ */
+public class VisualSearchSessionSnapshot
+{
+	private final Tenant tenant;
+	private final User user;
+	private final Language language;
+	private final Currency currency;
+	private final TimeZone timeZone;
+	private final Map<String, Object> attributes;
+
+	protected VisualSearchSessionSnapshot(final Tenant tenant, final User user, final Language language,
+			final Currency currency, final TimeZone timeZone, final Map<String, Object> attributes)
+	{
+		this.tenant = tenant;
+		this.user = user;
+		this.language = language;
+		this.currency = currency;
+		this.timeZone = timeZone;
+		this.attributes = attributes;
+	}
+
+	/**
+	 * @return the snapshot of the tenant and session of the current thread
+	 */
+	public static VisualSearchSessionSnapshot capture()
+	{
+		final JaloSession session = JaloSession.getCurrentSession();
+		final SessionContext sessionContext = session.getSessionContext();
+		return new VisualSearchSessionSnapshot(Registry.getCurrentTenant(), session.getUser(), sessionContext.getLanguage(),
+				sessionContext.getCurrency(), sessionContext.getTimeZone(), new HashMap<>(sessionContext.getAttributes()));
+	}
+
+	/**
+	 * Runs the given body in a new session of the captured tenant, the session is closed afterwards.
+	 */
+	public void runInSession(final Runnable body)
+	{
+		Registry.setCurrentTenant(tenant);
+		try
+		{
+			final JaloSession session = JaloSession.getCurrentSession();
+			try
+			{
+				session.setUser(user);
+				final SessionContext sessionContext = session.getSessionContext();
+				sessionContext.setLanguage(language);
+				sessionContext.setCurrency(currency);
+				sessionContext.setTimeZone(timeZone);
+				attributes.forEach(sessionContext::setAttribute);
+				body.run();
+			}
+			finally
+			{
+				session.close();
+				JaloSession.deactivate();
+			}
+		}
+		finally
+		{
+			Registry.unsetCurrentTenant();
+		}
+	}
+}
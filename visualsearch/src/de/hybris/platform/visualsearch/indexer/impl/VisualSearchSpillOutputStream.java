@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+
+/**
+ * Output stream that writes through to the target stream and keeps a copy of the written bytes in memory, as long as
+ * they don't exceed the spill buffer size. A complete copy allows to send the same content again without generating it
+ * a second time.
+ * <p>
+ * Closing this stream only flushes the target stream, which stays open for its owner.
+ */
+public class VisualSearchSpillOutputStream extends FilterOutputStream
+{
+	private final int spillBufferSize;
+	private ByteArrayOutputStream spillBuffer;
+	private boolean complete;
+
+	public VisualSearchSpillOutputStream(final OutputStream out, final int spillBufferSize)
+	{
+		super(out);
+		this.spillBufferSize = spillBufferSize;
+		this.spillBuffer = spillBufferSize > 0 ? new ByteArrayOutputStream(Math.min(spillBufferSize, 8192)) : null;
+	}
+
+	@Override
+	public void write(final int b) throws IOException
+	{
+		out.write(b);
+		if (reserve(1))
+		{
+			spillBuffer.write(b);
+		}
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len) throws IOException
+	{
+		out.write(b, off, len);
+		if (reserve(len))
+		{
+			spillBuffer.write(b, off, len);
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		flush();
+	}
+
+	/**
+	 * Marks the content as completely written.
+	 */
+	public void markComplete()
+	{
+		complete = true;
+	}
+
+	public boolean isComplete()
+	{
+		return complete;
+	}
+
+	/**
+	 * @return the written bytes, or <code>null</code> if they didn't fit into the spill buffer
+	 */
+	public byte[] getSpilledContent()
+	{
+		return spillBuffer == null ? null : spillBuffer.toByteArray();
+	}
+
+	protected boolean reserve(final int length)
+	{
+		if (spillBuffer != null && spillBuffer.size() + length > spillBufferSize)
+		{
+			spillBuffer = null;
+		}
+		return spillBuffer != null;
+	}
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.providers;
+
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRuntimeException;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
+
+import java.util.List;
+
+
+/**
+ * Optional extension of {@link VisualSearchValueProvider} for providers that are able to resolve a whole column of a
+ * batch at once, e.g. with a single set-based query. The indexer falls back to
+ * {@link #resolveValue(ItemModel, VisualSearchIndexedPropertyModel)} for providers that don't implement it.
+ */
+public interface BulkVisualSearchValueProvider extends VisualSearchValueProvider
+{
+	/**
+	 * Resolves the values to be indexed for all given items.
+	 *
+	 * @param models
+	 *           the values should be resolved for these model instances
+	 * @param visualSearchIndexedProperty
+	 *           the visual search indexed property that use the value provider
+	 * @return string values of the models' attribute, in the order of the given models
+	 * @throws VisualSearchIndexerRuntimeException
+	 *            if an error occurs
+	 */
+	public String[] resolveValues(final List<ItemModel> models, final VisualSearchIndexedPropertyModel visualSearchIndexedProperty)
+			throws VisualSearchIndexerRuntimeException;
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.providers;
+
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRuntimeException;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
+
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Optional extension of {@link BulkVisualSearchValueProvider} for providers that are able to resolve several columns of
+ * a batch at once, e.g. with a single projection query of raw attribute values. It is only used if projection is
+ * enabled on the index configuration.
+ */
+public interface ProjectionVisualSearchValueProvider extends BulkVisualSearchValueProvider
+{
+	/**
+	 * Resolves the values to be indexed for all given items and properties.
+	 *
+	 * @param models
+	 *           the values should be resolved for these model instances
+	 * @param visualSearchIndexedProperties
+	 *           the visual search indexed properties that use the value provider
+	 * @return string values by property, each in the order of the given models
+	 * @throws VisualSearchIndexerRuntimeException
+	 *            if an error occurs
+	 */
+	public Map<VisualSearchIndexedPropertyModel, String[]> resolveProjectedValues(final List<ItemModel> models,
+			final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties) throws VisualSearchIndexerRuntimeException;
+}
@@ -9,7 +9,9 @@ import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
 
 
 /**
- * Implementors for this interface should provide the field values to be indexed.
+ * Implementors for this interface should provide the field values to be indexed. If parallel resolution is enabled in
+ * the index configuration, {@link #resolveValue} is called by several threads at once, each with models of its own
+ * session.
  */
 public interface VisualSearchValueProvider
 {
@@ -3,12 +3,102 @@
  */
 package de.hybris.platform.visualsearch.indexer.providers.impl;
 
+import de.hybris.platform.catalog.model.CatalogVersionModel;
 import de.hybris.platform.category.model.CategoryModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.type.AttributeDescriptorModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.SearchResult;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRuntimeException;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import com.google.common.collect.Lists;
+
+
+/**
+ * Resolves the names of the categories of a product. The product super categories of a whole batch are loaded with a
+ * single query on the category product relation, other attributes are resolved like model attributes.
+ */
 public class VisualSearchCategoryNameValueProvider extends VisualSearchModelAttributeProvider
 {
+	private static final String PRODUCTS_PARAM = "products";
+	private static final String SUPERCATEGORIES_QUERY = "SELECT {rel.target}, {rel.source} FROM {CategoryProductRelation AS rel} "
+			+ "WHERE {rel.target} IN (?" + PRODUCTS_PARAM + ") ORDER BY {rel.target}, {rel.reverseSequenceNumber}";
+
+	@Override
+	public String[] resolveValues(final List<ItemModel> models, final VisualSearchIndexedPropertyModel visualSearchIndexedProperty)
+			throws VisualSearchIndexerRuntimeException
+	{
+		if (!ProductModel.SUPERCATEGORIES.equals(getAttributeName(visualSearchIndexedProperty)))
+		{
+			return super.resolveValues(models, visualSearchIndexedProperty);
+		}
+
+		final String[] values = new String[models.size()];
+
+		final Set<CatalogVersionModel> catalogVersions = new LinkedHashSet<>();
+		for (final ItemModel model : models)
+		{
+			if (!(model instanceof ProductModel))
+			{
+				throw new VisualSearchIndexerRuntimeException("Item to be indexed must be of Product type");
+			}
+			catalogVersions.add(((ProductModel) model).getCatalogVersion());
+		}
+
+		try
+		{
+			prepareSessionContext(catalogVersions);
+			final Map<PK, List<CategoryModel>> categories = loadSuperCategories(models);
+			for (int i = 0; i < values.length; i++)
+			{
+				values[i] = getStringValueOfObject(categories.get(models.get(i).getPk()));
+			}
+			return values;
+		}
+		finally
+		{
+			removeLocalSessionContext();
+		}
+	}
+
+	protected Map<PK, List<CategoryModel>> loadSuperCategories(final List<ItemModel> products)
+	{
+		final Map<PK, List<CategoryModel>> categories = new HashMap<>();
+		for (final List<ItemModel> chunk : Lists.partition(products, MAX_IN_CLAUSE_SIZE))
+		{
+			final FlexibleSearchQuery query = new FlexibleSearchQuery(SUPERCATEGORIES_QUERY);
+			query.addQueryParameter(PRODUCTS_PARAM, chunk);
+			query.setResultClassList(Arrays.asList(PK.class, CategoryModel.class));
+
+			final SearchResult<List<Object>> result = getFlexibleSearchService().search(query);
+			for (final List<Object> row : result.getResult())
+			{
+				categories.computeIfAbsent((PK) row.get(0), pk -> new ArrayList<>()).add((CategoryModel) row.get(1));
+			}
+		}
+		return categories;
+	}
+
+	/**
+	 * Category names are never projected, as they are localized and resolved through the category models.
+	 */
+	@Override
+	protected AttributeDescriptorModel getProjectableAttribute(final String attributeName)
+	{
+		return null;
+	}
+
 	@Override
 	protected String valueToString(final Object value)
 	{
@@ -4,33 +4,57 @@
 package de.hybris.platform.visualsearch.indexer.providers.impl;
 
 import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.model.ItemModel;
 import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.type.AtomicTypeModel;
+import de.hybris.platform.core.model.type.AttributeDescriptorModel;
 import de.hybris.platform.core.model.type.ComposedTypeModel;
 import de.hybris.platform.jalo.JaloSession;
 import de.hybris.platform.servicelayer.i18n.I18NService;
 import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
 import de.hybris.platform.servicelayer.session.Session;
 import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.type.TypeService;
 import de.hybris.platform.servicelayer.util.ServicesUtil;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRuntimeException;
-import de.hybris.platform.visualsearch.indexer.providers.VisualSearchValueProvider;
+import de.hybris.platform.visualsearch.indexer.providers.ProjectionVisualSearchValueProvider;
 import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang.StringUtils;
 import org.springframework.beans.factory.annotation.Required;
 
+import com.google.common.collect.Lists;
 
-public class VisualSearchModelAttributeProvider implements VisualSearchValueProvider
+
+public class VisualSearchModelAttributeProvider implements ProjectionVisualSearchValueProvider
 {
 	public static final String ATTRIBUTE_PARAM = "attribute";
 
+	protected static final int MAX_IN_CLAUSE_SIZE = 1000;
+
+	private static final String PKS_PARAM = "pks";
+	private static final Set<Class<?>> PROJECTABLE_TYPES = Set.of(String.class, Boolean.class, Character.class, Byte.class,
+			Short.class, Integer.class, Long.class, Float.class, Double.class, BigDecimal.class, BigInteger.class);
+
+	private FlexibleSearchService flexibleSearchService;
 	private ModelService modelService;
 	private TypeService typeService;
 	private SessionService sessionService;
@@ -47,9 +71,7 @@ public class VisualSearchModelAttributeProvider implements VisualSearchValueProv
 			final ProductModel product = (ProductModel) model;
 			try
 			{
-				createLocalSessionContext();
-				i18nService.setLocalizationFallbackEnabled(true);
-				catalogVersionService.setSessionCatalogVersions(Collections.singleton(product.getCatalogVersion()));
+				prepareSessionContext(Collections.singleton(product.getCatalogVersion()));
 				return doResolveValue(product, visualSearchIndexedProperty);
 			}
 			finally
@@ -64,27 +86,184 @@ public class VisualSearchModelAttributeProvider implements VisualSearchValueProv
 
 	}
 
-	protected String doResolveValue(final ProductModel model, final VisualSearchIndexedPropertyModel visualSearchIndexedProperty)
+	/**
+	 * Resolves the values of a whole batch. The attribute metadata is checked once for the batch and the session context
+	 * is set up once per catalog version instead of once per item.
+	 */
+	@Override
+	public String[] resolveValues(final List<ItemModel> models, final VisualSearchIndexedPropertyModel visualSearchIndexedProperty)
+			throws VisualSearchIndexerRuntimeException
 	{
-		Object value = null;
-
-		final String attributeName = getAttributeName(visualSearchIndexedProperty);
-		if (StringUtils.isNotEmpty(attributeName))
+		final String attributeName = getSupportedAttributeName(visualSearchIndexedProperty);
+		final String[] values = new String[models.size()];
+		for (final Map.Entry<CatalogVersionModel, List<Integer>> group : groupByCatalogVersion(models).entrySet())
 		{
-			final ComposedTypeModel composedType = typeService.getComposedTypeForClass(ProductModel.class);
+			try
+			{
+				prepareSessionContext(Collections.singleton(group.getKey()));
+				for (final Integer row : group.getValue())
+				{
+					values[row.intValue()] = resolveAttributeValue((ProductModel) models.get(row.intValue()), attributeName);
+				}
+			}
+			finally
+			{
+				removeLocalSessionContext();
+			}
+		}
+		return values;
+	}
 
-			if (typeService.hasAttribute(composedType, attributeName))
+	/**
+	 * Resolves the values of a whole batch. Non localized atomic attributes that are stored as item properties are read for
+	 * all properties with a single projection query, without accessing the attributes of the models. All other properties
+	 * are resolved with {@link #resolveValues(List, VisualSearchIndexedPropertyModel)}.
+	 */
+	@Override
+	public Map<VisualSearchIndexedPropertyModel, String[]> resolveProjectedValues(final List<ItemModel> models,
+			final List<VisualSearchIndexedPropertyModel> visualSearchIndexedProperties) throws VisualSearchIndexerRuntimeException
+	{
+		final Map<VisualSearchIndexedPropertyModel, String[]> values = new HashMap<>();
+		final Map<VisualSearchIndexedPropertyModel, AttributeDescriptorModel> projectedAttributes = new LinkedHashMap<>();
+		for (final VisualSearchIndexedPropertyModel property : visualSearchIndexedProperties)
+		{
+			final String attributeName = getSupportedAttributeName(property);
+			final AttributeDescriptorModel attribute = attributeName == null ? null : getProjectableAttribute(attributeName);
+			if (attribute != null)
 			{
-				value = modelService.getAttributeValue(model, attributeName);
+				projectedAttributes.put(property, attribute);
 			}
 			else
 			{
-				throw new VisualSearchIndexerRuntimeException("Unsupported attribute " + attributeName);
+				values.put(property, resolveValues(models, property));
 			}
 		}
 
+		if (!projectedAttributes.isEmpty())
+		{
+			values.putAll(loadProjectedValues(models, projectedAttributes));
+		}
+		return values;
+	}
+
+	/**
+	 * @return the descriptor of the attribute if its raw value can be used as feed value, <code>null</code> otherwise
+	 */
+	protected AttributeDescriptorModel getProjectableAttribute(final String attributeName)
+	{
+		final ComposedTypeModel composedType = typeService.getComposedTypeForClass(ProductModel.class);
+		final AttributeDescriptorModel attribute = typeService.getAttributeDescriptor(composedType, attributeName);
+		if (attribute == null || !Boolean.TRUE.equals(attribute.getProperty()) || Boolean.TRUE.equals(attribute.getLocalized())
+				|| !(attribute.getAttributeType() instanceof AtomicTypeModel))
+		{
+			return null;
+		}
+		return PROJECTABLE_TYPES.contains(((AtomicTypeModel) attribute.getAttributeType()).getJavaClass()) ? attribute : null;
+	}
+
+	protected Map<VisualSearchIndexedPropertyModel, String[]> loadProjectedValues(final List<ItemModel> models,
+			final Map<VisualSearchIndexedPropertyModel, AttributeDescriptorModel> projectedAttributes)
+	{
+		final List<VisualSearchIndexedPropertyModel> properties = new ArrayList<>(projectedAttributes.keySet());
+		final StringBuilder query = new StringBuilder("SELECT {").append(ItemModel.PK).append('}');
+		final List<Class<?>> resultClasses = new ArrayList<>(properties.size() + 1);
+		resultClasses.add(PK.class);
+		for (final AttributeDescriptorModel attribute : projectedAttributes.values())
+		{
+			query.append(", {").append(attribute.getQualifier()).append('}');
+			resultClasses.add(((AtomicTypeModel) attribute.getAttributeType()).getJavaClass());
+		}
+		query.append(" FROM {").append(ProductModel._TYPECODE).append("} WHERE {").append(ItemModel.PK).append("} IN (?")
+				.append(PKS_PARAM).append(')');
+
+		final Map<PK, Integer> rows = new HashMap<>();
+		for (int row = 0; row < models.size(); row++)
+		{
+			final ItemModel model = models.get(row);
+			if (!(model instanceof ProductModel))
+			{
+				throw new VisualSearchIndexerRuntimeException("Item to be indexed must be of Product type");
+			}
+			rows.put(model.getPk(), Integer.valueOf(row));
+		}
+
+		final Map<VisualSearchIndexedPropertyModel, String[]> values = new HashMap<>();
+		properties.forEach(property -> values.put(property, emptyValues(models.size())));
+		for (final List<PK> pks : Lists.partition(new ArrayList<>(rows.keySet()), MAX_IN_CLAUSE_SIZE))
+		{
+			final FlexibleSearchQuery fsQuery = new FlexibleSearchQuery(query.toString());
+			fsQuery.addQueryParameter(PKS_PARAM, pks);
+			fsQuery.setResultClassList(resultClasses);
+
+			final SearchResult<List<Object>> result = flexibleSearchService.search(fsQuery);
+			for (final List<Object> resultRow : result.getResult())
+			{
+				final int row = rows.get(resultRow.get(0)).intValue();
+				for (int column = 0; column < properties.size(); column++)
+				{
+					values.get(properties.get(column))[row] = getStringValueOfObject(resultRow.get(column + 1));
+				}
+			}
+		}
+		return values;
+	}
+
+	protected String[] emptyValues(final int size)
+	{
+		final String[] values = new String[size];
+		Arrays.fill(values, "");
+		return values;
+	}
+
+	protected Map<CatalogVersionModel, List<Integer>> groupByCatalogVersion(final List<ItemModel> models)
+	{
+		final Map<CatalogVersionModel, List<Integer>> groups = new LinkedHashMap<>();
+		for (int row = 0; row < models.size(); row++)
+		{
+			final ItemModel model = models.get(row);
+			ServicesUtil.validateParameterNotNull(model, "model instance is null");
+			if (!(model instanceof ProductModel))
+			{
+				throw new VisualSearchIndexerRuntimeException("Item to be indexed must be of Product type");
+			}
+			groups.computeIfAbsent(((ProductModel) model).getCatalogVersion(), catalogVersion -> new ArrayList<>())
+					.add(Integer.valueOf(row));
+		}
+		return groups;
+	}
+
+	protected String doResolveValue(final ProductModel model, final VisualSearchIndexedPropertyModel visualSearchIndexedProperty)
+	{
+		return resolveAttributeValue(model, getSupportedAttributeName(visualSearchIndexedProperty));
+	}
+
+	protected String resolveAttributeValue(final ProductModel model, final String attributeName)
+	{
+		final Object value = attributeName == null ? null : modelService.getAttributeValue(model, attributeName);
 		return getStringValueOfObject(value);
+	}
+
+	/**
+	 * Returns the attribute name of the given property after checking that products have such an attribute.
+	 *
+	 * @return the attribute name or <code>null</code> if the property doesn't define any
+	 * @throws VisualSearchIndexerRuntimeException
+	 *            if products don't have the attribute
+	 */
+	protected String getSupportedAttributeName(final VisualSearchIndexedPropertyModel visualSearchIndexedProperty)
+	{
+		final String attributeName = getAttributeName(visualSearchIndexedProperty);
+		if (StringUtils.isEmpty(attributeName))
+		{
+			return null;
+		}
 
+		final ComposedTypeModel composedType = typeService.getComposedTypeForClass(ProductModel.class);
+		if (!typeService.hasAttribute(composedType, attributeName))
+		{
+			throw new VisualSearchIndexerRuntimeException("Unsupported attribute " + attributeName);
+		}
+		return attributeName;
 	}
 
 	protected String getStringValueOfObject(final Object value)
@@ -123,6 +302,17 @@ public class VisualSearchModelAttributeProvider implements VisualSearchValueProv
 		return attributeName;
 	}
 
+	/**
+	 * Creates a local session context with localization fallback enabled and the given session catalog versions. It has
+	 * to be removed with {@link #removeLocalSessionContext()}.
+	 */
+	protected void prepareSessionContext(final Collection<CatalogVersionModel> catalogVersions)
+	{
+		createLocalSessionContext();
+		i18nService.setLocalizationFallbackEnabled(true);
+		catalogVersionService.setSessionCatalogVersions(catalogVersions);
+	}
+
 	protected void createLocalSessionContext()
 	{
 		final Session session = sessionService.getCurrentSession();
@@ -137,6 +327,17 @@ public class VisualSearchModelAttributeProvider implements VisualSearchValueProv
 		jaloSession.removeLocalSessionContext();
 	}
 
+	protected FlexibleSearchService getFlexibleSearchService()
+	{
+		return flexibleSearchService;
+	}
+
+	@Required
+	public void setFlexibleSearchService(final FlexibleSearchService flexibleSearchService)
+	{
+		this.flexibleSearchService = flexibleSearchService;
+	}
+
 	@Required
 	public void setModelService(final ModelService modelService)
 	{
@@ -7,7 +7,7 @@ import de.hybris.platform.core.PK;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
 
-import java.util.List;
+import java.util.Collection;
 
 
 /**
@@ -20,8 +20,24 @@ public interface VisualSearchIndexerStrategy
 	 * @param visualSearchConfig
 	 *           visual search configuration
 	 * @param pks
-	 *           list of pks to be indexed
+	 *           pks to be indexed, implementations should iterate them only once
 	 * @throws VisualSearchIndexerException
 	 */
-	public void execute(final VisualSearchConfigModel visualSearchConfig, final List<PK> pks) throws VisualSearchIndexerException;
+	public void execute(final VisualSearchConfigModel visualSearchConfig, final Collection<PK> pks)
+			throws VisualSearchIndexerException;
+
+	/**
+	 * Performs an update indexing: exports the changed products and a delete feed of the removed ones. Nothing is
+	 * exported or synchronized if both are empty.
+	 *
+	 * @param visualSearchConfig
+	 *           visual search configuration
+	 * @param pks
+	 *           pks of the changed products, implementations should iterate them only once
+	 * @param deletePks
+	 *           pks of the products to be removed from the index, implementations should iterate them only once
+	 * @throws VisualSearchIndexerException
+	 */
+	public void execute(final VisualSearchConfigModel visualSearchConfig, final Collection<PK> pks,
+			final Collection<PK> deletePks) throws VisualSearchIndexerException;
 }
@@ -23,6 +23,7 @@ import de.hybris.platform.servicelayer.tenant.TenantService;
 import de.hybris.platform.servicelayer.user.UserService;
 import de.hybris.platform.util.Utilities;
 import de.hybris.platform.visualsearch.constants.VisualsearchConstants;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.indexer.strategies.VisualSearchIndexerStrategy;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
@@ -33,9 +34,9 @@ import de.hybris.platform.visualsearch.model.VisualSearchSyncStatusCronJobModel;
 import java.io.File;
 import java.io.IOException;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
@@ -68,21 +69,51 @@ public class DefaultVisualSearchIndexerStrategy implements VisualSearchIndexerSt
 	private RestTemplate restTemplate;
 
 	@Override
-	public void execute(final VisualSearchConfigModel visualSearchConfig, final List<PK> pks) throws VisualSearchIndexerException
+	public void execute(final VisualSearchConfigModel visualSearchConfig, final Collection<PK> pks)
+			throws VisualSearchIndexerException
 	{
 		try (RevertibleUpdate revertibleUpdate = markThreadAsSuspendable())
 		{
 			LOG.info("Execute visual search strategy");
 
-			final long indexProcessId = generateIndexId();
 			final String exportPath = resolveFileDir(visualSearchConfig.getIndexConfig());
+			runDistributedIndexer(visualSearchConfig, VisualSearchIndexerOperation.FULL, pks, exportPath);
 
-			final CollectionBasedCreationData indexerProcessData = buildIndexerCreationData(visualSearchConfig, pks, indexProcessId);
-			final VisualSearchIndexerDistributedProcessModel distributedIndexerProcess = createDistributedIndexerProcess(
-					indexerProcessData, visualSearchConfig, indexProcessId, exportPath);
+			triggerSynchronization(visualSearchConfig);
+
+			createSyncStatusCronJob(visualSearchConfig);
+		}
+		catch (final Exception e)
+		{
+			throw new VisualSearchIndexerException(e);
+		}
+	}
 
-			distributedProcessService.start(distributedIndexerProcess.getCode());
-			waitForDistributedIndexer(distributedIndexerProcess.getCode());
+	@Override
+	public void execute(final VisualSearchConfigModel visualSearchConfig, final Collection<PK> pks,
+			final Collection<PK> deletePks) throws VisualSearchIndexerException
+	{
+		final boolean hasUpdates = !pks.isEmpty();
+		final boolean hasDeletes = !deletePks.isEmpty();
+		if (!hasUpdates && !hasDeletes)
+		{
+			LOG.info("No product has changed since the last visual search indexing, nothing to update");
+			return;
+		}
+
+		try (RevertibleUpdate revertibleUpdate = markThreadAsSuspendable())
+		{
+			LOG.info("Execute visual search update strategy");
+
+			final String exportPath = resolveFileDir(visualSearchConfig.getIndexConfig());
+			if (hasUpdates)
+			{
+				runDistributedIndexer(visualSearchConfig, VisualSearchIndexerOperation.UPDATE, pks, exportPath);
+			}
+			if (hasDeletes)
+			{
+				runDistributedIndexer(visualSearchConfig, VisualSearchIndexerOperation.DELETE, deletePks, exportPath);
+			}
 
 			triggerSynchronization(visualSearchConfig);
 
@@ -94,6 +125,20 @@ public class DefaultVisualSearchIndexerStrategy implements VisualSearchIndexerSt
 		}
 	}
 
+	protected void runDistributedIndexer(final VisualSearchConfigModel visualSearchConfig,
+			final VisualSearchIndexerOperation indexerOperation, final Collection<PK> pks, final String exportPath)
+			throws VisualSearchIndexerException, InterruptedException
+	{
+		final long indexProcessId = generateIndexId();
+
+		final CollectionBasedCreationData indexerProcessData = buildIndexerCreationData(visualSearchConfig, pks, indexProcessId);
+		final VisualSearchIndexerDistributedProcessModel distributedIndexerProcess = createDistributedIndexerProcess(
+				indexerProcessData, visualSearchConfig, indexProcessId, exportPath, indexerOperation);
+
+		distributedProcessService.start(distributedIndexerProcess.getCode());
+		waitForDistributedIndexer(distributedIndexerProcess.getCode());
+	}
+
 	protected RevertibleUpdate markThreadAsSuspendable()
 	{
 		return OperationInfo.updateThread(OperationInfo.builder().withTenant(resolveTenantId())
@@ -102,7 +147,7 @@ public class DefaultVisualSearchIndexerStrategy implements VisualSearchIndexerSt
 	}
 
 	protected CollectionBasedCreationData buildIndexerCreationData(final VisualSearchConfigModel visualSearchConfig,
-			final List<PK> pks, final long indexProcessId)
+			final Collection<PK> pks, final long indexProcessId)
 	{
 		final VisualSearchIndexConfigModel indexConfig = visualSearchConfig.getIndexConfig();
 
@@ -121,7 +166,7 @@ public class DefaultVisualSearchIndexerStrategy implements VisualSearchIndexerSt
 
 	protected VisualSearchIndexerDistributedProcessModel createDistributedIndexerProcess(
 			final CollectionBasedCreationData indexerProcessData, final VisualSearchConfigModel visualSearchConfig,
-			final long indexProcessId, final String exportPath)
+			final long indexProcessId, final String exportPath, final VisualSearchIndexerOperation indexerOperation)
 	{
 		final UserModel sessionUser = resolveSessionUser();
 
@@ -130,6 +175,7 @@ public class DefaultVisualSearchIndexerStrategy implements VisualSearchIndexerSt
 		distributedIndexerProcess.setIndexOperationId(indexProcessId);
 		distributedIndexerProcess.setVisualSearchConfig(visualSearchConfig.getName());
 		distributedIndexerProcess.setExportPath(exportPath);
+		distributedIndexerProcess.setIndexerOperation(indexerOperation);
 
 		// session related parameters
 		distributedIndexerProcess.setSessionUser(sessionUser.getUid());
@@ -6,11 +6,13 @@ package de.hybris.platform.visualsearch.cron;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.verify;
 
 import de.hybris.bootstrap.annotations.UnitTest;
 import de.hybris.platform.cronjob.enums.CronJobResult;
 import de.hybris.platform.cronjob.enums.CronJobStatus;
 import de.hybris.platform.servicelayer.cronjob.PerformResult;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.VisualSearchIndexerService;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
@@ -62,7 +64,8 @@ public class VisualSearchIndexerJobTest
 	{
 		// given
 		cronJob.setVisualSearchConfig(visualSearchConfig);
-		willDoNothing().given(visualSearchIndexerService).performVisualSearchIndex(visualSearchConfig);
+		willDoNothing().given(visualSearchIndexerService).performVisualSearchIndex(visualSearchConfig,
+				VisualSearchIndexerOperation.FULL);
 
 		// when
 		final PerformResult result = indexerJob.perform(cronJob);
@@ -77,7 +80,7 @@ public class VisualSearchIndexerJobTest
 		// given
 		cronJob.setVisualSearchConfig(visualSearchConfig);
 		willThrow(VisualSearchIndexerException.class).given(visualSearchIndexerService)
-				.performVisualSearchIndex(visualSearchConfig);
+				.performVisualSearchIndex(visualSearchConfig, VisualSearchIndexerOperation.FULL);
 
 		// when
 		final PerformResult result = indexerJob.perform(cronJob);
@@ -85,4 +88,19 @@ public class VisualSearchIndexerJobTest
 		assertEquals(CronJobResult.FAILURE, result.getResult());
 		assertEquals(CronJobStatus.ABORTED, result.getStatus());
 	}
+
+	@Test
+	public void performUpdate() throws Exception
+	{
+		// given
+		cronJob.setVisualSearchConfig(visualSearchConfig);
+		cronJob.setIndexerOperation(VisualSearchIndexerOperation.UPDATE);
+
+		// when
+		final PerformResult result = indexerJob.perform(cronJob);
+
+		// then
+		verify(visualSearchIndexerService).performVisualSearchIndex(visualSearchConfig, VisualSearchIndexerOperation.UPDATE);
+		assertEquals(CronJobResult.SUCCESS, result.getResult());
+	}
 }
@@ -8,6 +8,7 @@ import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -21,7 +22,9 @@ import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
 import de.hybris.platform.servicelayer.search.FlexibleSearchService;
 import de.hybris.platform.servicelayer.search.SearchResult;
 import de.hybris.platform.util.Utilities;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.VisualSearchIndexer;
+import de.hybris.platform.visualsearch.indexer.VisualSearchRowFingerprintService;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRuntimeException;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
@@ -59,10 +62,13 @@ public class DefaultVisualSearchIndexerBatchProcessorTest
 	private FlexibleSearchService flexibleSearchService;
 	@Mock
 	private VisualSearchIndexer visualSearchIndexer;
+	@Mock
+	private VisualSearchRowFingerprintService visualSearchRowFingerprintService;
 
 	@Mock
 	private SimpleBatchModel inputBatch;
 
+	private VisualSearchIndexerDistributedProcessModel distributedProcess;
 	private String filePath;
 	private List<ItemModel> items;
 	private VisualSearchConfigModel visualSearchConfig;
@@ -77,10 +83,11 @@ public class DefaultVisualSearchIndexerBatchProcessorTest
 		indexerBatchProcessor.setFlexibleSearchService(flexibleSearchService);
 		indexerBatchProcessor.setVisualSearchConfigGenericDao(visualSearchConfigGenericDao);
 		indexerBatchProcessor.setVisualSearchIndexer(visualSearchIndexer);
+		indexerBatchProcessor.setVisualSearchRowFingerprintService(visualSearchRowFingerprintService);
 
 		final String platformTempDir = Utilities.getPlatformConfig().getSystemConfig().getTempDir().getPath() + File.separator
 				+ EXPORT_SUB_DIR;
-		final VisualSearchIndexerDistributedProcessModel distributedProcess = new VisualSearchIndexerDistributedProcessModel();
+		distributedProcess = new VisualSearchIndexerDistributedProcessModel();
 		distributedProcess.setVisualSearchConfig(VISUAL_SEARCH_CONFIG);
 		distributedProcess.setIndexOperationId(INDEX_OPERATION_ID);
 		distributedProcess.setExportPath(platformTempDir);
@@ -111,14 +118,16 @@ public class DefaultVisualSearchIndexerBatchProcessorTest
 	public void processIndexerSuccess() throws Exception
 	{
 		// given
-		willDoNothing().given(visualSearchIndexer).generateDataFeed(items, visualSearchConfig, filePath);
+		willDoNothing().given(visualSearchIndexer).generateDataFeed(items, visualSearchConfig,
+				VisualSearchIndexerOperation.FULL, filePath);
 		willDoNothing().given(visualSearchIndexer).uploadDataFeed(filePath, visualSearchConfig);
 
 		// when
 		indexerBatchProcessor.process(inputBatch);
 
 		// then
-		verify(visualSearchIndexer, times(1)).generateDataFeed(items, visualSearchConfig, filePath);
+		verify(visualSearchIndexer, times(1)).generateDataFeed(items, visualSearchConfig,
+				VisualSearchIndexerOperation.FULL, filePath);
 		verify(visualSearchIndexer, times(1)).uploadDataFeed(filePath, visualSearchConfig);
 	}
 
@@ -127,7 +136,8 @@ public class DefaultVisualSearchIndexerBatchProcessorTest
 	{
 		// given
 		visualSearchConfig.getIndexConfig().setMaxBatchRetries(0);
-		willDoNothing().given(visualSearchIndexer).generateDataFeed(items, visualSearchConfig, filePath);
+		willDoNothing().given(visualSearchIndexer).generateDataFeed(items, visualSearchConfig,
+				VisualSearchIndexerOperation.FULL, filePath);
 		willThrow(VisualSearchIndexerException.class).given(visualSearchIndexer).uploadDataFeed(filePath, visualSearchConfig);
 
 		// expect
@@ -138,7 +148,8 @@ public class DefaultVisualSearchIndexerBatchProcessorTest
 		indexerBatchProcessor.process(inputBatch);
 
 		// then
-		verify(visualSearchIndexer, times(1)).generateDataFeed(items, visualSearchConfig, filePath);
+		verify(visualSearchIndexer, times(1)).generateDataFeed(items, visualSearchConfig,
+				VisualSearchIndexerOperation.FULL, filePath);
 		verify(visualSearchIndexer, times(1)).uploadDataFeed(filePath, visualSearchConfig);
 	}
 
@@ -147,7 +158,8 @@ public class DefaultVisualSearchIndexerBatchProcessorTest
 	{
 		// given
 		visualSearchConfig.getIndexConfig().setMaxBatchRetries(2);
-		willDoNothing().given(visualSearchIndexer).generateDataFeed(items, visualSearchConfig, filePath);
+		willDoNothing().given(visualSearchIndexer).generateDataFeed(items, visualSearchConfig,
+				VisualSearchIndexerOperation.FULL, filePath);
 		willThrow(VisualSearchIndexerException.class).given(visualSearchIndexer).uploadDataFeed(filePath, visualSearchConfig);
 
 		// expect
@@ -158,10 +170,66 @@ public class DefaultVisualSearchIndexerBatchProcessorTest
 		indexerBatchProcessor.process(inputBatch);
 
 		// then
-		verify(visualSearchIndexer, times(1)).generateDataFeed(items, visualSearchConfig, filePath);
+		verify(visualSearchIndexer, times(1)).generateDataFeed(items, visualSearchConfig,
+				VisualSearchIndexerOperation.FULL, filePath);
 		verify(visualSearchIndexer, times(3)).uploadDataFeed(filePath, visualSearchConfig);
 	}
 
+	@Test
+	public void processIndexerUploadFailureRemovesFingerprints() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setMaxBatchRetries(0);
+		visualSearchConfig.getIndexConfig().setFingerprintEnabled(Boolean.TRUE);
+		willThrow(VisualSearchIndexerException.class).given(visualSearchIndexer).uploadDataFeed(filePath, visualSearchConfig);
+
+		// expect
+		expectedException.expect(VisualSearchIndexerRuntimeException.class);
+
+		// when
+		try
+		{
+			indexerBatchProcessor.process(inputBatch);
+		}
+		catch (final VisualSearchIndexerRuntimeException e)
+		{
+			// then
+			verify(visualSearchRowFingerprintService, times(1)).removeFingerprints(visualSearchConfig, Collections.emptyList());
+			throw e;
+		}
+	}
+
+	@Test
+	public void processIndexerStreaming() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setStreamingEnabled(Boolean.TRUE);
+
+		// when
+		indexerBatchProcessor.process(inputBatch);
+
+		// then
+		verify(visualSearchIndexer, times(1)).streamDataFeed(items, visualSearchConfig, VisualSearchIndexerOperation.FULL,
+				new File(filePath).getName());
+		verify(visualSearchIndexer, never()).generateDataFeed(any(), any(), any(), any());
+		verify(visualSearchIndexer, never()).uploadDataFeed(any(), any());
+	}
+
+	@Test
+	public void processIndexerDeleteFeed() throws Exception
+	{
+		// given
+		distributedProcess.setIndexerOperation(VisualSearchIndexerOperation.DELETE);
+		visualSearchConfig.getIndexConfig().setStreamingEnabled(Boolean.TRUE);
+
+		// when
+		indexerBatchProcessor.process(inputBatch);
+
+		// then
+		verify(visualSearchIndexer, times(1)).streamDataFeed(items, visualSearchConfig, VisualSearchIndexerOperation.DELETE,
+				DefaultVisualSearchIndexerBatchProcessor.VS_DELETE_FILE_PREFIX + "_" + INDEX_OPERATION_ID + "_1.csv");
+	}
+
 	private String getExpectedFileName(final String platformTempDir)
 	{
 		final String fileName = DefaultVisualSearchIndexerBatchProcessor.VS_FILE_PREFIX + "_" + String.valueOf(INDEX_OPERATION_ID)
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.IntegrationTest;
+import de.hybris.platform.catalog.CatalogVersionService;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.jalo.JaloSession;
+import de.hybris.platform.search.restriction.SearchRestrictionService;
+import de.hybris.platform.servicelayer.ServicelayerTest;
+import de.hybris.platform.servicelayer.i18n.I18NService;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.session.SessionService;
+import de.hybris.platform.visualsearch.indexer.providers.VisualSearchValueProvider;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
+
+import java.io.BufferedWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+
+/**
+ * Runs the parallel value resolution with real worker sessions.
+ */
+@IntegrationTest
+public class DefaultVisualSearchIndexerIntegrationTest extends ServicelayerTest
+{
+	private static final String CODE_VALUE_PROVIDER = "codeValueProvider";
+	private static final String SESSION_VALUE_PROVIDER = "sessionValueProvider";
+	private static final String SESSION_ATTRIBUTE = "visualSearchTestAttribute";
+	private static final int PRODUCTS = 100;
+
+	@Resource
+	private ModelService modelService;
+	@Resource
+	private CatalogVersionService catalogVersionService;
+	@Resource
+	private SessionService sessionService;
+	@Resource
+	private SearchRestrictionService searchRestrictionService;
+	@Resource
+	private I18NService i18NService;
+
+	private final Set<JaloSession> workerSessions = ConcurrentHashMap.newKeySet();
+	private final Set<Integer> resolvedItems = ConcurrentHashMap.newKeySet();
+	private DefaultVisualSearchIndexer indexer;
+	private VisualSearchIndexedPropertyModel codeProperty;
+	private VisualSearchIndexedPropertyModel sessionProperty;
+	private List<ItemModel> products;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		createCoreData();
+		createDefaultCatalog();
+
+		final VisualSearchValueProvider codeProvider = (item, property) -> {
+			workerSessions.add(JaloSession.getCurrentSession());
+			resolvedItems.add(Integer.valueOf(System.identityHashCode(item)));
+			return ((ProductModel) item).getCode();
+		};
+		final VisualSearchValueProvider sessionProvider = (item, property) -> ((ProductModel) item).getCode() + "|"
+				+ catalogVersionService.getSessionCatalogVersions().stream().map(CatalogVersionModel::getVersion).sorted()
+						.collect(Collectors.joining(","))
+				+ "|" + searchRestrictionService.isSearchRestrictionsEnabled() + "|" + i18NService.isLocalizationFallbackEnabled()
+				+ "|" + sessionService.getAttribute(SESSION_ATTRIBUTE);
+		final StaticApplicationContext applicationContext = new StaticApplicationContext();
+		applicationContext.getBeanFactory().registerSingleton(CODE_VALUE_PROVIDER, codeProvider);
+		applicationContext.getBeanFactory().registerSingleton(SESSION_VALUE_PROVIDER, sessionProvider);
+		applicationContext.refresh();
+
+		indexer = new DefaultVisualSearchIndexer();
+		indexer.setApplicationContext(applicationContext);
+		indexer.setModelService(modelService);
+		indexer.setParallelism(4);
+
+		codeProperty = modelService.create(VisualSearchIndexedPropertyModel.class);
+		codeProperty.setName("code");
+		codeProperty.setDisplayName("code");
+		codeProperty.setFieldValueProvider(CODE_VALUE_PROVIDER);
+		modelService.save(codeProperty);
+
+		sessionProperty = modelService.create(VisualSearchIndexedPropertyModel.class);
+		sessionProperty.setName("session");
+		sessionProperty.setDisplayName("session");
+		sessionProperty.setFieldValueProvider(SESSION_VALUE_PROVIDER);
+		modelService.save(sessionProperty);
+
+		final CatalogVersionModel catalogVersion = catalogVersionService.getCatalogVersion("testCatalog", "Online");
+		products = new ArrayList<>(PRODUCTS);
+		for (int i = 0; i < PRODUCTS; i++)
+		{
+			final ProductModel product = modelService.create(ProductModel.class);
+			product.setCode("parallelProduct" + i);
+			product.setCatalogVersion(catalogVersion);
+			products.add(product);
+		}
+		modelService.saveAll(products);
+	}
+
+	@After
+	public void tearDown()
+	{
+		indexer.destroy();
+	}
+
+	@Test
+	public void generateCSVContentInParallelUsesWorkerSessions() throws Exception
+	{
+		// given
+		final JaloSession indexingSession = JaloSession.getCurrentSession();
+		final VisualSearchFeedRowPlan rowPlan = indexer.compileRowPlan(Collections.singletonList(codeProperty), false, true);
+		final StringBuilder expected = new StringBuilder();
+		products.forEach(product -> expected.append(((ProductModel) product).getCode()).append(";\n"));
+
+		// when
+		final StringWriter content = new StringWriter();
+		try (BufferedWriter writer = new BufferedWriter(content))
+		{
+			indexer.generateCSVContent(writer, products, rowPlan);
+		}
+
+		// then
+		assertEquals(expected.toString(), content.toString());
+		assertFalse(workerSessions.isEmpty());
+		assertFalse(workerSessions.contains(indexingSession));
+		for (final ItemModel product : products)
+		{
+			assertFalse(resolvedItems.contains(Integer.valueOf(System.identityHashCode(product))));
+		}
+		assertTrue(workerSessions.stream().allMatch(JaloSession::isClosed));
+	}
+
+	@Test
+	public void generateCSVContentInParallelKeepsSessionState() throws Exception
+	{
+		// given
+		catalogVersionService.setSessionCatalogVersion("testCatalog", "Online");
+		searchRestrictionService.disableSearchRestrictions();
+		i18NService.setLocalizationFallbackEnabled(true);
+		sessionService.setAttribute(SESSION_ATTRIBUTE, "indexing");
+
+		// when
+		final String sequential = generateCSVContent(false);
+		final String parallel = generateCSVContent(true);
+
+		// then
+		assertTrue(sequential.startsWith("parallelProduct0|Online|false|true|indexing;\n"));
+		assertEquals(sequential, parallel);
+	}
+
+	private String generateCSVContent(final boolean parallelResolution) throws Exception
+	{
+		final VisualSearchFeedRowPlan rowPlan = indexer.compileRowPlan(Collections.singletonList(sessionProperty), false,
+				parallelResolution);
+		final StringWriter content = new StringWriter();
+		try (BufferedWriter writer = new BufferedWriter(content))
+		{
+			indexer.generateCSVContent(writer, products, rowPlan);
+		}
+		return content.toString();
+	}
+
+	@Test
+	public void runInSessionKeepsUserAndLanguage() throws Exception
+	{
+		// given
+		final JaloSession indexingSession = JaloSession.getCurrentSession();
+		final VisualSearchSessionSnapshot sessionSnapshot = VisualSearchSessionSnapshot.capture();
+		final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try
+		{
+			// when
+			final Future<Object[]> result = executor.submit(() -> {
+				final Object[] state = new Object[3];
+				sessionSnapshot.runInSession(() -> {
+					final JaloSession workerSession = JaloSession.getCurrentSession();
+					state[0] = workerSession;
+					state[1] = workerSession.getUser();
+					state[2] = workerSession.getSessionContext().getLanguage();
+				});
+				return state;
+			});
+			final Object[] state = result.get();
+
+			// then
+			assertNotSame(indexingSession, state[0]);
+			assertEquals(indexingSession.getUser(), state[1]);
+			assertEquals(indexingSession.getSessionContext().getLanguage(), state[2]);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+}
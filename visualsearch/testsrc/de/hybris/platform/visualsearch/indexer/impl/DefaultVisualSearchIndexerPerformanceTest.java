@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.PerformanceTest;
+import de.hybris.platform.core.model.ItemModel;
+import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.visualsearch.indexer.providers.VisualSearchValueProvider;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
+
+import java.io.BufferedWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.StaticApplicationContext;
+
+
+/**
+ * Compares the feed generation throughput of per-cell value provider lookups with the compiled row plan.
+ */
+@PerformanceTest
+public class DefaultVisualSearchIndexerPerformanceTest
+{
+	private static final Logger LOG = Logger.getLogger(DefaultVisualSearchIndexerPerformanceTest.class);
+
+	private static final int ITEMS = 200_000;
+	private static final int COLUMNS = 12;
+	private static final int ROUNDS = 5;
+
+	private DefaultVisualSearchIndexer indexer;
+	private List<VisualSearchIndexedPropertyModel> properties;
+	private List<ItemModel> items;
+
+	@Before
+	public void setUp()
+	{
+		final StaticApplicationContext applicationContext = new StaticApplicationContext();
+		properties = new ArrayList<>(COLUMNS);
+		for (int i = 0; i < COLUMNS; i++)
+		{
+			final String providerId = "valueProvider" + i;
+			final VisualSearchValueProvider provider = (item, property) -> property.getDisplayName();
+			applicationContext.getBeanFactory().registerSingleton(providerId, provider);
+
+			final VisualSearchIndexedPropertyModel property = new VisualSearchIndexedPropertyModel();
+			property.setDisplayName("column" + i);
+			property.setFieldValueProvider(providerId);
+			properties.add(property);
+		}
+		applicationContext.refresh();
+
+		indexer = new DefaultVisualSearchIndexer();
+		indexer.setApplicationContext(applicationContext);
+
+		items = new ArrayList<>(ITEMS);
+		for (int i = 0; i < ITEMS; i++)
+		{
+			final ProductModel product = new ProductModel();
+			product.setCode("product" + i);
+			items.add(product);
+		}
+	}
+
+	@Test
+	public void compareRowsPerSecond() throws Exception
+	{
+		double perCellRowsPerSecond = 0;
+		double rowPlanRowsPerSecond = 0;
+		for (int round = 0; round < ROUNDS; round++)
+		{
+			perCellRowsPerSecond = measure(this::generateWithPerCellLookups);
+			rowPlanRowsPerSecond = measure(this::generateWithRowPlan);
+		}
+
+		LOG.info(String.format("Per-cell lookups: %.0f rows/s, compiled row plan: %.0f rows/s (%d columns)",
+				Double.valueOf(perCellRowsPerSecond), Double.valueOf(rowPlanRowsPerSecond), Integer.valueOf(COLUMNS)));
+		assertTrue(rowPlanRowsPerSecond > 0);
+	}
+
+	protected double measure(final FeedGeneration generation) throws Exception
+	{
+		try (BufferedWriter writer = new BufferedWriter(Writer.nullWriter()))
+		{
+			final long start = System.nanoTime();
+			generation.generate(writer);
+			final long elapsed = Math.max(System.nanoTime() - start, 1);
+			return ITEMS * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+		}
+	}
+
+	protected void generateWithPerCellLookups(final BufferedWriter writer) throws Exception
+	{
+		for (final ItemModel item : items)
+		{
+			final StringBuilder builder = new StringBuilder();
+			for (final VisualSearchIndexedPropertyModel property : properties)
+			{
+				final VisualSearchValueProvider provider = indexer.getValueProvider(property.getFieldValueProvider());
+				builder.append(provider.resolveValue(item, property)).append(';');
+			}
+			writer.append(builder.toString()).append('\n');
+		}
+	}
+
+	protected void generateWithRowPlan(final BufferedWriter writer)
+	{
+		indexer.generateCSVContent(writer, items, indexer.compileRowPlan(properties));
+	}
+
+	@FunctionalInterface
+	protected interface FeedGeneration
+	{
+		void generate(BufferedWriter writer) throws Exception;
+	}
+}
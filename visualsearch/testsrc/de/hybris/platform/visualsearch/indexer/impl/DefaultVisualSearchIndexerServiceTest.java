@@ -4,11 +4,16 @@
 package de.hybris.platform.visualsearch.indexer.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.willDoNothing;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -24,19 +29,24 @@ import de.hybris.platform.servicelayer.search.SearchResult;
 import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.tenant.TenantService;
 import de.hybris.platform.servicelayer.user.UserService;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.enums.VisualSearchSyncResult;
+import de.hybris.platform.visualsearch.indexer.VisualSearchRowFingerprintService;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.indexer.strategies.VisualSearchIndexerStrategy;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
 import de.hybris.platform.visualsearch.model.VisualSearchIndexConfigModel;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -45,6 +55,8 @@ import org.mockito.MockitoAnnotations;
 public class DefaultVisualSearchIndexerServiceTest
 {
 	private static final String INDEX_CONFIG_QUERY = "query";
+	private static final String INDEX_CONFIG_UPDATE_QUERY = "updateQuery";
+	private static final String INDEX_CONFIG_DELETE_QUERY = "deleteQuery";
 
 	@Rule
 	public ExpectedException expectedException = ExpectedException.none();
@@ -61,6 +73,8 @@ public class DefaultVisualSearchIndexerServiceTest
 	private FlexibleSearchService flexibleSearchService;
 	@Mock
 	private VisualSearchIndexerStrategy visualSearchIndexerStrategy;
+	@Mock
+	private VisualSearchRowFingerprintService visualSearchRowFingerprintService;
 
 	@Mock
 	private JaloSession jaloSession;
@@ -81,6 +95,7 @@ public class DefaultVisualSearchIndexerServiceTest
 		visualSearchIndexerService.setTenantService(tenantService);
 		visualSearchIndexerService.setUserService(userService);
 		visualSearchIndexerService.setVisualSearchIndexerStrategy(visualSearchIndexerStrategy);
+		visualSearchIndexerService.setVisualSearchRowFingerprintService(visualSearchRowFingerprintService);
 
 		given(sessionService.getRawSession(any())).willReturn(jaloSession);
 
@@ -152,4 +167,107 @@ public class DefaultVisualSearchIndexerServiceTest
 		verify(visualSearchIndexerStrategy, times(1)).execute(visualSearchConfig, pks);
 		verify(jaloSession, times(1)).removeLocalSessionContext();
 	}
+
+	@Test
+	public void performVisualSearchIndexWithKeysetPaging() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setPkPageSize(100);
+
+		// when
+		visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig);
+
+		// then
+		verify(visualSearchIndexerStrategy, times(1)).execute(eq(visualSearchConfig), any(VisualSearchKeysetPkCollection.class));
+		verify(flexibleSearchService, never()).search(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	public void performVisualSearchIndexSetsLastIndexTime() throws Exception
+	{
+		// given
+		final Date before = new Date();
+
+		// when
+		visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig);
+
+		// then
+		assertNotNull(visualSearchConfig.getLastIndexTime());
+		assertFalse(visualSearchConfig.getLastIndexTime().before(before));
+	}
+
+	@Test
+	public void performVisualSearchUpdateIndex() throws Exception
+	{
+		// given
+		final Date lastIndexTime = new Date(1000L);
+		visualSearchConfig.setLastIndexTime(lastIndexTime);
+		visualSearchConfig.getIndexConfig().setUpdateQuery(INDEX_CONFIG_UPDATE_QUERY);
+		visualSearchConfig.getIndexConfig().setDeleteQuery(INDEX_CONFIG_DELETE_QUERY);
+
+		// when
+		visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig, VisualSearchIndexerOperation.UPDATE);
+
+		// then
+		final ArgumentCaptor<FlexibleSearchQuery> queryCaptor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(2)).search(queryCaptor.capture());
+		assertEquals(INDEX_CONFIG_UPDATE_QUERY, queryCaptor.getAllValues().get(0).getQuery());
+		assertEquals(INDEX_CONFIG_DELETE_QUERY, queryCaptor.getAllValues().get(1).getQuery());
+		assertEquals(lastIndexTime, queryCaptor.getAllValues().get(0).getQueryParameters().get("lastIndexTime"));
+		verify(visualSearchIndexerStrategy, times(1)).execute(visualSearchConfig, pks, pks);
+		verify(visualSearchIndexerStrategy, never()).execute(visualSearchConfig, pks);
+		assertTrue(visualSearchConfig.getLastIndexTime().after(lastIndexTime));
+	}
+
+	@Test
+	public void performVisualSearchUpdateIndexWithoutDeleteQuery() throws Exception
+	{
+		// given
+		visualSearchConfig.setLastIndexTime(new Date());
+		visualSearchConfig.getIndexConfig().setUpdateQuery(INDEX_CONFIG_UPDATE_QUERY);
+
+		// when
+		visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig, VisualSearchIndexerOperation.UPDATE);
+
+		// then
+		verify(flexibleSearchService, times(1)).search(any(FlexibleSearchQuery.class));
+		verify(visualSearchIndexerStrategy, times(1)).execute(visualSearchConfig, pks, Collections.emptyList());
+	}
+
+	@Test
+	public void performVisualSearchUpdateIndexWithoutPreviousIndexing() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setUpdateQuery(INDEX_CONFIG_UPDATE_QUERY);
+
+		// when
+		visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig, VisualSearchIndexerOperation.UPDATE);
+
+		// then
+		verify(visualSearchIndexerStrategy, times(1)).execute(visualSearchConfig, pks);
+		verify(visualSearchIndexerStrategy, never()).execute(eq(visualSearchConfig), any(), any());
+	}
+
+	@Test
+	public void performVisualSearchIndexRemovesOrphanedFingerprints() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setFingerprintEnabled(Boolean.TRUE);
+
+		// when
+		visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig);
+
+		// then
+		verify(visualSearchRowFingerprintService, times(1)).removeOrphanedFingerprints(visualSearchConfig);
+	}
+
+	@Test
+	public void performVisualSearchIndexWithoutFingerprints() throws Exception
+	{
+		// when
+		visualSearchIndexerService.performVisualSearchIndex(visualSearchConfig);
+
+		// then
+		verify(visualSearchRowFingerprintService, never()).removeOrphanedFingerprints(any(VisualSearchConfigModel.class));
+	}
 }
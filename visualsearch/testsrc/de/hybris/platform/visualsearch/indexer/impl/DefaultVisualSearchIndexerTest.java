@@ -4,16 +4,30 @@
 package de.hybris.platform.visualsearch.indexer.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.PK;
 import de.hybris.platform.core.model.ItemModel;
 import de.hybris.platform.core.model.product.ProductModel;
 import de.hybris.platform.util.Utilities;
+import de.hybris.platform.visualsearch.enums.VisualSearchFeedCompression;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
+import de.hybris.platform.visualsearch.indexer.VisualSearchRowFingerprintService;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRuntimeException;
+import de.hybris.platform.visualsearch.indexer.providers.VisualSearchValueProvider;
 import de.hybris.platform.visualsearch.indexer.providers.impl.VisualSearchCategoryNameValueProvider;
 import de.hybris.platform.visualsearch.indexer.providers.impl.VisualSearchImageUrlValueProvider;
 import de.hybris.platform.visualsearch.indexer.providers.impl.VisualSearchModelAttributeProvider;
@@ -23,23 +37,36 @@ import de.hybris.platform.visualsearch.model.VisualSearchIndexConfigModel;
 import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
 import de.hybris.platform.visualsearch.model.VisualSearchServerConfigModel;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 
 import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.SftpException;
 
 
 @UnitTest
@@ -62,6 +89,10 @@ public class DefaultVisualSearchIndexerTest
 
 	public static final String EXPORT_SUB_DIR = "visualsearch";
 	private static final String VISUAL_SEARCH_CONFIG = "visualSearchConfig";
+	private static final String FILE_NAME = "datafeed_1.csv";
+	private static final String PART_FILE_NAME = FILE_NAME + DefaultVisualSearchIndexer.PART_FILE_SUFFIX;
+	private static final PK PK_1 = PK.fromLong(1);
+	private static final PK PK_2 = PK.fromLong(2);
 
 	@Rule
 	public ExpectedException expectedException = ExpectedException.none();
@@ -77,6 +108,8 @@ public class DefaultVisualSearchIndexerTest
 	private VisualSearchCategoryNameValueProvider categoryProvider;
 	@Mock
 	private VisualSearchImageUrlValueProvider urlProvider;
+	@Mock
+	private VisualSearchRowFingerprintService fingerprintService;
 
 	private VisualSearchConfigModel visualSearchConfig;
 	private Collection<ItemModel> items;
@@ -91,6 +124,7 @@ public class DefaultVisualSearchIndexerTest
 		indexer = new DefaultVisualSearchIndexer();
 		indexer.setSshdPool(sshdPool);
 		indexer.setApplicationContext(applicationContext);
+		indexer.setVisualSearchRowFingerprintService(fingerprintService);
 
 		final String platformTempDir = Utilities.getPlatformConfig().getSystemConfig().getTempDir().getPath() + File.separator
 				+ EXPORT_SUB_DIR;
@@ -135,6 +169,10 @@ public class DefaultVisualSearchIndexerTest
 		given(categoryProvider.resolveValue(product2, categoryProperty)).willReturn(PRODUCT_2_CATEGORY_VALUE);
 		given(urlProvider.resolveValue(product1, urlProperty)).willReturn(PRODUCT_1_IMAGE_URL_VALUE);
 		given(urlProvider.resolveValue(product2, urlProperty)).willReturn(PRODUCT_2_IMAGE_URL_VALUE);
+		given(codeProvider.resolveValues(any(List.class), eq(codeProperty))).willReturn(new String[]
+		{ PRODUCT_1_CODE_VALUE, PRODUCT_2_CODE_VALUE });
+		given(categoryProvider.resolveValues(any(List.class), eq(categoryProperty))).willReturn(new String[]
+		{ PRODUCT_1_CATEGORY_VALUE, PRODUCT_2_CATEGORY_VALUE });
 
 		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(mock(ChannelSftp.class));
 	}
@@ -190,6 +228,452 @@ public class DefaultVisualSearchIndexerTest
 		file.delete();
 	}
 
+	@Test
+	public void generateDataFeedResolvesValueProvidersOncePerBatch() throws Exception
+	{
+		// given
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+
+		// when
+		indexer.generateDataFeed(items, visualSearchConfig, filePath);
+
+		// then
+		verify(applicationContext, times(1)).getBean(CODE_VALUE_PROVIDER);
+		verify(applicationContext, times(1)).getBean(CATEGORY_VALUE_PROVIDER);
+		verify(applicationContext, times(1)).getBean(URL_VALUE_PROVIDER);
+
+		Files.deleteIfExists(Paths.get(filePath));
+	}
+
+	@Test
+	public void generateDataFeedUsesBulkValueProviders() throws Exception
+	{
+		// given
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+
+		// when
+		indexer.generateDataFeed(items, visualSearchConfig, filePath);
+
+		// then
+		verify(categoryProvider, times(1)).resolveValues(any(List.class), any(VisualSearchIndexedPropertyModel.class));
+		verify(categoryProvider, never()).resolveValue(any(ItemModel.class), any(VisualSearchIndexedPropertyModel.class));
+		assertEquals(getFileContent(), Files.readString(Paths.get(filePath), StandardCharsets.US_ASCII));
+
+		Files.deleteIfExists(Paths.get(filePath));
+	}
+
+	@Test
+	public void generateDataFeedBulkValueProviderWrongSize() throws Exception
+	{
+		// given
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+		given(codeProvider.resolveValues(any(List.class), eq(codeProperty))).willReturn(new String[]
+		{ PRODUCT_1_CODE_VALUE, PRODUCT_2_CODE_VALUE });
+		given(categoryProvider.resolveValues(any(List.class), any(VisualSearchIndexedPropertyModel.class))).willReturn(new String[]
+		{ PRODUCT_1_CATEGORY_VALUE });
+
+		// expect
+		expectedException.expect(VisualSearchIndexerRuntimeException.class);
+		expectedException.expectMessage("Bulk value provider returned an unexpected number of values: " + CATEGORY_VALUE_PROVIDER);
+
+		// when
+		indexer.generateDataFeed(items, visualSearchConfig, filePath);
+	}
+
+	@Test
+	public void generateDataFeedUsesProjectionWhenEnabled() throws Exception
+	{
+		// given
+		final VisualSearchIndexConfigModel indexConfig = visualSearchConfig.getIndexConfig();
+		indexConfig.setProjectionEnabled(Boolean.TRUE);
+		final VisualSearchIndexedPropertyModel codeProperty = indexConfig.getVisualSearchIndexedProperties().get(0);
+		final VisualSearchIndexedPropertyModel categoryProperty = indexConfig.getVisualSearchIndexedProperties().get(1);
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+		given(codeProvider.resolveProjectedValues(any(List.class), eq(Collections.singletonList(codeProperty))))
+				.willReturn(Collections.singletonMap(codeProperty, new String[]
+				{ PRODUCT_1_CODE_VALUE, PRODUCT_2_CODE_VALUE }));
+		given(categoryProvider.resolveProjectedValues(any(List.class), eq(Collections.singletonList(categoryProperty))))
+				.willReturn(Collections.singletonMap(categoryProperty, new String[]
+				{ PRODUCT_1_CATEGORY_VALUE, PRODUCT_2_CATEGORY_VALUE }));
+
+		// when
+		indexer.generateDataFeed(items, visualSearchConfig, filePath);
+
+		// then
+		verify(codeProvider, never()).resolveValues(any(List.class), any(VisualSearchIndexedPropertyModel.class));
+		assertEquals(getFileContent(), Files.readString(Paths.get(filePath), StandardCharsets.US_ASCII));
+
+		Files.deleteIfExists(Paths.get(filePath));
+	}
+
+	@Test
+	public void streamDataFeedWritesToSftpChannel() throws Exception
+	{
+		// given
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		final ByteArrayOutputStream sftpStream = new ByteArrayOutputStream();
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(sftpStream);
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// when
+		indexer.streamDataFeed(items, visualSearchConfig, FILE_NAME);
+
+		// then
+		assertEquals(getFileContent(), sftpStream.toString(StandardCharsets.UTF_8));
+		verify(sftpChannel, times(1)).rename(PART_FILE_NAME, FILE_NAME);
+		verify(sshdPool, times(1)).returnConnection(sftpChannel);
+		assertFalse(new File(filePath).exists());
+	}
+
+	@Test
+	public void streamDataFeedInvalidatesConnectionWhenValueProviderFails() throws Exception
+	{
+		// given
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+		given(urlProvider.resolveValue(any(ItemModel.class), any(VisualSearchIndexedPropertyModel.class)))
+				.willThrow(new VisualSearchIndexerRuntimeException("no image"));
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(new ByteArrayOutputStream());
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// expect
+		expectedException.expect(VisualSearchIndexerRuntimeException.class);
+
+		// when
+		try
+		{
+			indexer.streamDataFeed(items, visualSearchConfig, FILE_NAME);
+		}
+		catch (final VisualSearchIndexerRuntimeException e)
+		{
+			// then
+			verify(sshdPool, times(1)).invalidateObject(sftpChannel);
+			verify(sshdPool, never()).returnConnection(sftpChannel);
+			verify(sftpChannel, never()).rename(any(String.class), any(String.class));
+			throw e;
+		}
+	}
+
+	@Test
+	public void streamDataFeedCompressed() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setFeedCompression(VisualSearchFeedCompression.GZIP);
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		final ByteArrayOutputStream sftpStream = new ByteArrayOutputStream();
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(sftpStream);
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// when
+		indexer.streamDataFeed(items, visualSearchConfig, FILE_NAME);
+
+		// then
+		try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(sftpStream.toByteArray())))
+		{
+			assertEquals(getFileContent(), new String(inputStream.readAllBytes(), StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void streamDataFeedRetriesFromSpillBuffer() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setMaxBatchRetries(1);
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+		final ChannelSftp failingChannel = mock(ChannelSftp.class);
+		given(failingChannel.put(PART_FILE_NAME)).willReturn(new ByteArrayOutputStream()
+		{
+			@Override
+			public void close() throws IOException
+			{
+				throw new IOException("connection lost");
+			}
+		});
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		final ByteArrayOutputStream sftpStream = new ByteArrayOutputStream();
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(sftpStream);
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(failingChannel, sftpChannel);
+
+		// when
+		indexer.streamDataFeed(items, visualSearchConfig, FILE_NAME);
+
+		// then
+		assertEquals(getFileContent(), sftpStream.toString(StandardCharsets.UTF_8));
+		verify(sshdPool, times(1)).invalidateObject(failingChannel);
+		verify(codeProvider, times(1)).resolveValues(any(List.class), any(VisualSearchIndexedPropertyModel.class));
+	}
+
+	@Test
+	public void streamDataFeedRemovesPartFileWhenUploadFails() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setMaxBatchRetries(0);
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(new ByteArrayOutputStream()
+		{
+			@Override
+			public void close() throws IOException
+			{
+				throw new IOException("connection lost");
+			}
+		});
+		willThrow(new SftpException(ChannelSftp.SSH_FX_FAILURE, "failure")).given(sftpChannel).rm(PART_FILE_NAME);
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// expect
+		expectedException.expect(VisualSearchIndexerException.class);
+
+		// when
+		try
+		{
+			indexer.streamDataFeed(items, visualSearchConfig, FILE_NAME);
+		}
+		catch (final VisualSearchIndexerException e)
+		{
+			// then
+			final InOrder inOrder = inOrder(sftpChannel, sshdPool);
+			inOrder.verify(sftpChannel, times(1)).rm(PART_FILE_NAME);
+			inOrder.verify(sshdPool, times(1)).invalidateObject(sftpChannel);
+			verify(sftpChannel, never()).rename(any(String.class), any(String.class));
+			throw e;
+		}
+	}
+
+	@Test
+	public void streamDataFeedFailsWhenRetriesAreExhausted() throws Exception
+	{
+		// given
+		visualSearchConfig.getIndexConfig().setMaxBatchRetries(0);
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		given(sftpChannel.put(PART_FILE_NAME)).willThrow(new SftpException(ChannelSftp.SSH_FX_FAILURE, "failure"));
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// expect
+		expectedException.expect(VisualSearchIndexerException.class);
+		expectedException.expectMessage("Upload of datafeed " + FILE_NAME + " has failed.");
+
+		// when
+		indexer.streamDataFeed(items, visualSearchConfig, FILE_NAME);
+	}
+
+	@Test
+	public void streamDataFeedDeleteContainsFirstColumnOnly() throws Exception
+	{
+		// given
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		final ByteArrayOutputStream sftpStream = new ByteArrayOutputStream();
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(sftpStream);
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// when
+		indexer.streamDataFeed(items, visualSearchConfig, VisualSearchIndexerOperation.DELETE, FILE_NAME);
+
+		// then
+		assertEquals(CODE_VS_INDEXED_PROPERTY + ";\n" + PRODUCT_1_CODE_VALUE + ";\n" + PRODUCT_2_CODE_VALUE + ";\n",
+				sftpStream.toString(StandardCharsets.UTF_8));
+		verify(applicationContext, never()).getBean(CATEGORY_VALUE_PROVIDER);
+		verify(applicationContext, never()).getBean(URL_VALUE_PROVIDER);
+	}
+
+	@Test
+	public void streamDataFeedUpdateSkipsUnchangedRows() throws Exception
+	{
+		// given
+		final List<ItemModel> fingerprintedItems = givenFingerprintedItems();
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		final ByteArrayOutputStream sftpStream = new ByteArrayOutputStream();
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(sftpStream);
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// when
+		indexer.streamDataFeed(fingerprintedItems, visualSearchConfig, VisualSearchIndexerOperation.UPDATE, FILE_NAME);
+
+		// then
+		assertEquals(CODE_VS_INDEXED_PROPERTY + ";" + CATEGORY_VS_INDEXED_PROPERTY + ";" + IMAGE_URL_VS_INDEXED_PROPERTY + ";\n"
+				+ getRow(PRODUCT_2_CODE_VALUE, PRODUCT_2_CATEGORY_VALUE, PRODUCT_2_IMAGE_URL_VALUE),
+				sftpStream.toString(StandardCharsets.UTF_8));
+		verify(fingerprintService, times(1)).saveFingerprints(visualSearchConfig, Collections.singletonMap(PK_2,
+				Long.valueOf(getRow(PRODUCT_2_CODE_VALUE, PRODUCT_2_CATEGORY_VALUE, PRODUCT_2_IMAGE_URL_VALUE).hashCode())));
+	}
+
+	@Test
+	public void streamDataFeedFullExportsUnchangedRows() throws Exception
+	{
+		// given
+		final List<ItemModel> fingerprintedItems = givenFingerprintedItems();
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		final ByteArrayOutputStream sftpStream = new ByteArrayOutputStream();
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(sftpStream);
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// when
+		indexer.streamDataFeed(fingerprintedItems, visualSearchConfig, VisualSearchIndexerOperation.FULL, FILE_NAME);
+
+		// then
+		assertEquals(getFileContent(), sftpStream.toString(StandardCharsets.UTF_8));
+		verify(fingerprintService, times(1)).saveFingerprints(visualSearchConfig, Collections.singletonMap(PK_2,
+				Long.valueOf(getRow(PRODUCT_2_CODE_VALUE, PRODUCT_2_CATEGORY_VALUE, PRODUCT_2_IMAGE_URL_VALUE).hashCode())));
+	}
+
+	@Test
+	public void streamDataFeedDeleteRemovesFingerprints() throws Exception
+	{
+		// given
+		final List<ItemModel> fingerprintedItems = givenFingerprintedItems();
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		given(sftpChannel.put(PART_FILE_NAME)).willReturn(new ByteArrayOutputStream());
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// when
+		indexer.streamDataFeed(fingerprintedItems, visualSearchConfig, VisualSearchIndexerOperation.DELETE, FILE_NAME);
+
+		// then
+		verify(fingerprintService, times(1)).removeFingerprints(visualSearchConfig, Arrays.asList(PK_1, PK_2));
+		verify(fingerprintService, never()).getFingerprints(any(VisualSearchConfigModel.class), any(Collection.class));
+		verify(fingerprintService, never()).saveFingerprints(any(VisualSearchConfigModel.class), any(Map.class));
+	}
+
+	@Test
+	public void streamDataFeedFailureKeepsFingerprints() throws Exception
+	{
+		// given
+		final List<ItemModel> fingerprintedItems = givenFingerprintedItems();
+		visualSearchConfig.getIndexConfig().setMaxBatchRetries(0);
+		final ChannelSftp sftpChannel = mock(ChannelSftp.class);
+		given(sftpChannel.put(PART_FILE_NAME)).willThrow(new SftpException(ChannelSftp.SSH_FX_FAILURE, "failure"));
+		given(sshdPool.getConnection(visualSearchConfig.getServerConfig())).willReturn(sftpChannel);
+
+		// expect
+		expectedException.expect(VisualSearchIndexerException.class);
+
+		// when
+		try
+		{
+			indexer.streamDataFeed(fingerprintedItems, visualSearchConfig, VisualSearchIndexerOperation.UPDATE, FILE_NAME);
+		}
+		catch (final VisualSearchIndexerException e)
+		{
+			// then
+			verify(fingerprintService, never()).saveFingerprints(any(VisualSearchConfigModel.class), any(Map.class));
+			throw e;
+		}
+	}
+
+	@Test
+	public void compileRowPlanKeepsColumnOrder()
+	{
+		// given
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+
+		// when
+		final VisualSearchFeedRowPlan rowPlan = indexer
+				.compileRowPlan(visualSearchConfig.getIndexConfig().getVisualSearchIndexedProperties());
+
+		// then
+		assertEquals(3, rowPlan.getColumnCount());
+		assertSame(codeProvider, rowPlan.getColumns().get(0).getValueProvider());
+		assertSame(categoryProvider, rowPlan.getColumns().get(1).getValueProvider());
+		assertSame(urlProvider, rowPlan.getColumns().get(2).getValueProvider());
+		assertEquals(CODE_VS_INDEXED_PROPERTY + ";" + CATEGORY_VS_INDEXED_PROPERTY + ";" + IMAGE_URL_VS_INDEXED_PROPERTY + ";\n",
+				rowPlan.getHeader());
+	}
+
+	@Test
+	public void generateCSVContentInParallelKeepsItemOrder() throws Exception
+	{
+		// given
+		final AtomicInteger generatedRows = new AtomicInteger();
+		final DefaultVisualSearchIndexer parallelIndexer = new DefaultVisualSearchIndexer()
+		{
+			@Override
+			protected void generateContentForItem(final BufferedWriter writer, final StringBuilder builder, final ItemModel item,
+					final int row, final VisualSearchFeedRowPlan rowPlan, final String[][] bulkValues,
+					final VisualSearchFeedFingerprints fingerprints)
+			{
+				generatedRows.incrementAndGet();
+				super.generateContentForItem(writer, builder, item, row, rowPlan, bulkValues, fingerprints);
+			}
+
+			@Override
+			protected VisualSearchSessionSnapshot captureSession()
+			{
+				return null;
+			}
+
+			@Override
+			protected void runInWorkerSession(final VisualSearchSessionSnapshot sessionSnapshot, final Runnable body)
+			{
+				body.run();
+			}
+
+			@Override
+			protected <T extends ItemModel> T loadInWorkerSession(final T item)
+			{
+				return item;
+			}
+		};
+		parallelIndexer.setApplicationContext(applicationContext);
+		parallelIndexer.setParallelism(4);
+		final VisualSearchValueProvider codeValueProvider = (item, property) -> ((ProductModel) item).getCode();
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeValueProvider);
+
+		final VisualSearchIndexedPropertyModel codeProperty = visualSearchConfig.getIndexConfig()
+				.getVisualSearchIndexedProperties().get(0);
+		final List<ItemModel> products = new ArrayList<>();
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 100; i++)
+		{
+			final ProductModel product = new ProductModel();
+			product.setCode("product" + i);
+			products.add(product);
+			expected.append(product.getCode()).append(";\n");
+		}
+		final VisualSearchFeedRowPlan rowPlan = parallelIndexer.compileRowPlan(Collections.singletonList(codeProperty), false,
+				true);
+
+		// when
+		final StringWriter content = new StringWriter();
+		try (BufferedWriter writer = new BufferedWriter(content))
+		{
+			parallelIndexer.generateCSVContent(writer, products, rowPlan);
+		}
+		finally
+		{
+			parallelIndexer.destroy();
+		}
+
+		// then
+		assertEquals(expected.toString(), content.toString());
+		assertEquals(products.size(), generatedRows.get());
+	}
+
 	@Test
 	public void uploadDataFeedNoFile() throws Exception
 	{
@@ -217,6 +701,36 @@ public class DefaultVisualSearchIndexerTest
 		Files.deleteIfExists(Paths.get(filePath));
 	}
 
+	private List<ItemModel> givenFingerprintedItems()
+	{
+		given(applicationContext.getBean(CODE_VALUE_PROVIDER)).willReturn(codeProvider);
+		given(applicationContext.getBean(CATEGORY_VALUE_PROVIDER)).willReturn(categoryProvider);
+		given(applicationContext.getBean(URL_VALUE_PROVIDER)).willReturn(urlProvider);
+
+		final ProductModel product1 = mock(ProductModel.class);
+		given(product1.getPk()).willReturn(PK_1);
+		final ProductModel product2 = mock(ProductModel.class);
+		given(product2.getPk()).willReturn(PK_2);
+		final VisualSearchIndexedPropertyModel urlProperty = visualSearchConfig.getIndexConfig()
+				.getVisualSearchIndexedProperties().get(2);
+		given(urlProvider.resolveValue(product1, urlProperty)).willReturn(PRODUCT_1_IMAGE_URL_VALUE);
+		given(urlProvider.resolveValue(product2, urlProperty)).willReturn(PRODUCT_2_IMAGE_URL_VALUE);
+
+		visualSearchConfig.getIndexConfig().setFingerprintEnabled(Boolean.TRUE);
+		given(fingerprintService.computeFingerprint(any(CharSequence.class)))
+				.willAnswer(invocation -> Long.valueOf(invocation.getArguments()[0].toString().hashCode()));
+		given(fingerprintService.getFingerprints(visualSearchConfig, Arrays.asList(PK_1, PK_2))).willReturn(Collections
+				.singletonMap(PK_1, Long.valueOf(getRow(PRODUCT_1_CODE_VALUE, PRODUCT_1_CATEGORY_VALUE, PRODUCT_1_IMAGE_URL_VALUE)
+						.hashCode())));
+
+		return Arrays.<ItemModel> asList(product1, product2);
+	}
+
+	private String getRow(final String code, final String category, final String url)
+	{
+		return code + ";" + category + ";" + url + ";\n";
+	}
+
 	private String getFileContent()
 	{
 		final StringBuffer buffer = new StringBuffer();
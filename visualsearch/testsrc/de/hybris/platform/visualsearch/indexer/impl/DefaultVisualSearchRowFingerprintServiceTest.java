@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
+import de.hybris.platform.visualsearch.model.VisualSearchRowFingerprintModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+@UnitTest
+public class DefaultVisualSearchRowFingerprintServiceTest
+{
+	private static final PK PK_1 = PK.fromLong(1);
+	private static final PK PK_2 = PK.fromLong(2);
+
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
+	@Mock
+	private ModelService modelService;
+
+	private VisualSearchConfigModel visualSearchConfig;
+	private DefaultVisualSearchRowFingerprintService fingerprintService;
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+
+		fingerprintService = new DefaultVisualSearchRowFingerprintService();
+		fingerprintService.setFlexibleSearchService(flexibleSearchService);
+		fingerprintService.setModelService(modelService);
+
+		visualSearchConfig = new VisualSearchConfigModel();
+	}
+
+	@Test
+	public void computeFingerprint()
+	{
+		// when
+		final long fingerprint = fingerprintService.computeFingerprint("product1;category1;url1;\n");
+
+		// then
+		assertEquals(fingerprint, fingerprintService.computeFingerprint(new StringBuilder("product1;category1;url1;\n")));
+		assertNotEquals(fingerprint, fingerprintService.computeFingerprint("product1;category2;url1;\n"));
+	}
+
+	@Test
+	public void getFingerprints()
+	{
+		// given
+		final SearchResult searchResult = mock(SearchResult.class);
+		given(searchResult.getResult()).willReturn(Collections.singletonList(Arrays.asList(Long.valueOf(1), Long.valueOf(42))));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(searchResult);
+
+		// when
+		final Map<PK, Long> fingerprints = fingerprintService.getFingerprints(visualSearchConfig, Arrays.asList(PK_1, PK_2));
+
+		// then
+		assertEquals(Collections.singletonMap(PK_1, Long.valueOf(42)), fingerprints);
+
+		final ArgumentCaptor<FlexibleSearchQuery> queryCaptor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(1)).search(queryCaptor.capture());
+		assertSame(visualSearchConfig, queryCaptor.getValue().getQueryParameters().get("visualSearchConfig"));
+		assertEquals(Arrays.asList(Long.valueOf(1), Long.valueOf(2)), queryCaptor.getValue().getQueryParameters().get("pks"));
+	}
+
+	@Test
+	public void getFingerprintsQueriesPerThousandProducts()
+	{
+		// given
+		final SearchResult searchResult = mock(SearchResult.class);
+		given(searchResult.getResult()).willReturn(Collections.emptyList());
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(searchResult);
+
+		final List<PK> pks = new ArrayList<>();
+		for (int i = 1; i <= 2500; i++)
+		{
+			pks.add(PK.fromLong(i));
+		}
+
+		// when
+		fingerprintService.getFingerprints(visualSearchConfig, pks);
+
+		// then
+		verify(flexibleSearchService, times(3)).search(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	public void saveFingerprintsUpdatesExistingAndCreatesNew()
+	{
+		// given
+		final VisualSearchRowFingerprintModel existing = new VisualSearchRowFingerprintModel();
+		existing.setVisualSearchConfig(visualSearchConfig);
+		existing.setProductPk(1);
+		existing.setFingerprint(42);
+		final SearchResult searchResult = mock(SearchResult.class);
+		given(searchResult.getResult()).willReturn(Collections.singletonList(existing));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(searchResult);
+		given(modelService.create(VisualSearchRowFingerprintModel.class)).willReturn(new VisualSearchRowFingerprintModel());
+
+		final Map<PK, Long> fingerprints = new HashMap<>();
+		fingerprints.put(PK_1, Long.valueOf(43));
+		fingerprints.put(PK_2, Long.valueOf(44));
+
+		// when
+		fingerprintService.saveFingerprints(visualSearchConfig, fingerprints);
+
+		// then
+		final ArgumentCaptor<Collection> modelsCaptor = ArgumentCaptor.forClass(Collection.class);
+		verify(modelService, times(1)).saveAll(modelsCaptor.capture());
+		final Map<Long, Long> saved = new HashMap<>();
+		for (final Object model : modelsCaptor.getValue())
+		{
+			final VisualSearchRowFingerprintModel fingerprint = (VisualSearchRowFingerprintModel) model;
+			assertSame(visualSearchConfig, fingerprint.getVisualSearchConfig());
+			saved.put(Long.valueOf(fingerprint.getProductPk()), Long.valueOf(fingerprint.getFingerprint()));
+		}
+		assertEquals(2, saved.size());
+		assertEquals(Long.valueOf(43), saved.get(Long.valueOf(1)));
+		assertEquals(Long.valueOf(44), saved.get(Long.valueOf(2)));
+		verify(modelService, times(1)).create(VisualSearchRowFingerprintModel.class);
+	}
+
+	@Test
+	public void saveNoFingerprints()
+	{
+		// when
+		fingerprintService.saveFingerprints(visualSearchConfig, Collections.emptyMap());
+
+		// then
+		verify(flexibleSearchService, never()).search(any(FlexibleSearchQuery.class));
+		verify(modelService, never()).saveAll(any(Collection.class));
+	}
+
+	@Test
+	public void removeFingerprints()
+	{
+		// given
+		final VisualSearchRowFingerprintModel existing = new VisualSearchRowFingerprintModel();
+		final SearchResult searchResult = mock(SearchResult.class);
+		given(searchResult.getResult()).willReturn(Collections.singletonList(existing));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(searchResult);
+
+		// when
+		fingerprintService.removeFingerprints(visualSearchConfig, Arrays.asList(PK_1, PK_2));
+
+		// then
+		verify(modelService, times(1)).removeAll(Collections.singletonList(existing));
+	}
+
+	@Test
+	public void removeOrphanedFingerprints()
+	{
+		// given
+		final VisualSearchRowFingerprintModel orphaned = new VisualSearchRowFingerprintModel();
+		final SearchResult searchResult = mock(SearchResult.class);
+		given(searchResult.getResult()).willReturn(Collections.singletonList(orphaned));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(searchResult);
+
+		// when
+		fingerprintService.removeOrphanedFingerprints(visualSearchConfig);
+
+		// then
+		final ArgumentCaptor<FlexibleSearchQuery> queryCaptor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(1)).search(queryCaptor.capture());
+		assertSame(visualSearchConfig, queryCaptor.getValue().getQueryParameters().get("visualSearchConfig"));
+		verify(modelService, times(1)).removeAll(Collections.singletonList(orphaned));
+	}
+}
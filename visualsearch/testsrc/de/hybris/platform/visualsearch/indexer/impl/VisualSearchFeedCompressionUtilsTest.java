@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.visualsearch.enums.VisualSearchFeedCompression;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexConfigModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+
+@UnitTest
+public class VisualSearchFeedCompressionUtilsTest
+{
+	private static final byte[] CONTENT = "code;name;\nproduct1;Product 1;\nproduct2;Product 2;\n".repeat(100)
+			.getBytes(StandardCharsets.UTF_8);
+
+	private VisualSearchIndexConfigModel indexConfig;
+
+	@Before
+	public void setUp()
+	{
+		indexConfig = new VisualSearchIndexConfigModel();
+	}
+
+	@Test
+	public void noCompressionByDefault() throws Exception
+	{
+		// given
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		// when
+		final OutputStream compressed = VisualSearchFeedCompressionUtils.compress(outputStream, indexConfig);
+
+		// then
+		assertSame(outputStream, compressed);
+		assertEquals(".csv", VisualSearchFeedCompressionUtils.getFileExtension(indexConfig));
+	}
+
+	@Test
+	public void compressGzip() throws Exception
+	{
+		// given
+		indexConfig.setFeedCompression(VisualSearchFeedCompression.GZIP);
+		indexConfig.setFeedCompressionLevel(Integer.valueOf(9));
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		// when
+		try (OutputStream compressed = VisualSearchFeedCompressionUtils.compress(outputStream, indexConfig))
+		{
+			compressed.write(CONTENT);
+		}
+
+		// then
+		assertEquals(".csv.gz", VisualSearchFeedCompressionUtils.getFileExtension(indexConfig));
+		assertTrue(outputStream.size() < CONTENT.length);
+		try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray())))
+		{
+			assertArrayEquals(CONTENT, inputStream.readAllBytes());
+		}
+	}
+
+	@Test
+	public void compressZstd() throws Exception
+	{
+		// given
+		indexConfig.setFeedCompression(VisualSearchFeedCompression.ZSTD);
+		final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+		// when
+		try (OutputStream compressed = VisualSearchFeedCompressionUtils.compress(outputStream, indexConfig))
+		{
+			compressed.write(CONTENT);
+		}
+
+		// then
+		assertEquals(".csv.zst", VisualSearchFeedCompressionUtils.getFileExtension(indexConfig));
+		assertTrue(outputStream.size() < CONTENT.length);
+		try (ZstdInputStream inputStream = new ZstdInputStream(new ByteArrayInputStream(outputStream.toByteArray())))
+		{
+			assertArrayEquals(CONTENT, inputStream.readAllBytes());
+		}
+	}
+}
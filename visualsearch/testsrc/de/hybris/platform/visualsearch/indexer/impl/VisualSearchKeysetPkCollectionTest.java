@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2020 SAP SE or an SAP affiliate company. All rights reserved.
+ */
+package de.hybris.platform.visualsearch.indexer.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.hybris.bootstrap.annotations.UnitTest;
+import de.hybris.platform.catalog.model.CatalogVersionModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.user.UserModel;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
+import de.hybris.platform.visualsearch.model.VisualSearchIndexConfigModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+@UnitTest
+public class VisualSearchKeysetPkCollectionTest
+{
+	private static final String INDEX_CONFIG_QUERY = "SELECT {pk} FROM {Product}";
+	private static final PK PK_1 = PK.fromLong(1);
+	private static final PK PK_2 = PK.fromLong(2);
+	private static final PK PK_3 = PK.fromLong(3);
+
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
+
+	private VisualSearchIndexConfigModel indexConfig;
+
+	@Before
+	public void setUp()
+	{
+		MockitoAnnotations.initMocks(this);
+
+		indexConfig = new VisualSearchIndexConfigModel();
+		indexConfig.setUser(new UserModel());
+		indexConfig.setQuery(INDEX_CONFIG_QUERY);
+		indexConfig.setCatalogVersion(new CatalogVersionModel());
+	}
+
+	@Test
+	public void iteratePagesByLastPk()
+	{
+		// given
+		final SearchResult firstPage = mock(SearchResult.class);
+		given(firstPage.getResult()).willReturn(Arrays.asList(PK_1, PK_2));
+		final SearchResult lastPage = mock(SearchResult.class);
+		given(lastPage.getResult()).willReturn(Collections.singletonList(PK_3));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(firstPage, lastPage);
+
+		final VisualSearchKeysetPkCollection pks = new VisualSearchKeysetPkCollection(flexibleSearchService, indexConfig, 2);
+
+		// when
+		final List<PK> result = new ArrayList<>();
+		pks.forEach(result::add);
+
+		// then
+		assertEquals(Arrays.asList(PK_1, PK_2, PK_3), result);
+
+		final ArgumentCaptor<FlexibleSearchQuery> queryCaptor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(2)).search(queryCaptor.capture());
+		assertEquals(PK.NULL_PK, queryCaptor.getAllValues().get(0).getQueryParameters().get("lastPk"));
+		assertEquals(PK_2, queryCaptor.getAllValues().get(1).getQueryParameters().get("lastPk"));
+		assertEquals(2, queryCaptor.getAllValues().get(0).getCount());
+	}
+
+	@Test
+	public void iterateStopsOnEmptyPage()
+	{
+		// given
+		final SearchResult firstPage = mock(SearchResult.class);
+		given(firstPage.getResult()).willReturn(Arrays.asList(PK_1, PK_2));
+		final SearchResult emptyPage = mock(SearchResult.class);
+		given(emptyPage.getResult()).willReturn(Collections.emptyList());
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(firstPage, emptyPage);
+
+		final VisualSearchKeysetPkCollection pks = new VisualSearchKeysetPkCollection(flexibleSearchService, indexConfig, 2);
+
+		// when
+		final List<PK> result = new ArrayList<>();
+		pks.forEach(result::add);
+
+		// then
+		assertEquals(Arrays.asList(PK_1, PK_2), result);
+		verify(flexibleSearchService, times(2)).search(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	public void sizeIsCountedOnce()
+	{
+		// given
+		final SearchResult count = mock(SearchResult.class);
+		given(count.getResult()).willReturn(Collections.singletonList(Integer.valueOf(3)));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(count);
+
+		final VisualSearchKeysetPkCollection pks = new VisualSearchKeysetPkCollection(flexibleSearchService, indexConfig, 2);
+
+		// when
+		pks.size();
+		final int size = pks.size();
+
+		// then
+		assertEquals(3, size);
+		verify(flexibleSearchService, times(1)).search(any(FlexibleSearchQuery.class));
+	}
+
+	@Test
+	public void isEmptyLoadsSinglePk()
+	{
+		// given
+		final SearchResult firstPk = mock(SearchResult.class);
+		given(firstPk.getResult()).willReturn(Collections.singletonList(PK_1));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(firstPk);
+
+		final VisualSearchKeysetPkCollection pks = new VisualSearchKeysetPkCollection(flexibleSearchService, indexConfig, 2);
+
+		// when
+		final boolean empty = pks.isEmpty();
+
+		// then
+		assertFalse(empty);
+		final ArgumentCaptor<FlexibleSearchQuery> queryCaptor = ArgumentCaptor.forClass(FlexibleSearchQuery.class);
+		verify(flexibleSearchService, times(1)).search(queryCaptor.capture());
+		assertEquals(1, queryCaptor.getValue().getCount());
+		assertFalse(queryCaptor.getValue().getQuery().contains("COUNT"));
+	}
+}
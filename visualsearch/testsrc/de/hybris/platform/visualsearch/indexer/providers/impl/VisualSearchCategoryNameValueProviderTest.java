@@ -3,21 +3,30 @@
  */
 package de.hybris.platform.visualsearch.indexer.providers.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import de.hybris.bootstrap.annotations.UnitTest;
 import de.hybris.platform.catalog.CatalogVersionService;
 import de.hybris.platform.catalog.model.CatalogVersionModel;
 import de.hybris.platform.category.model.CategoryModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
 import de.hybris.platform.core.model.product.ProductModel;
 import de.hybris.platform.core.model.type.ComposedTypeModel;
 import de.hybris.platform.jalo.JaloSession;
 import de.hybris.platform.servicelayer.i18n.I18NService;
 import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
 import de.hybris.platform.servicelayer.session.Session;
 import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.type.TypeService;
@@ -40,6 +49,8 @@ public class VisualSearchCategoryNameValueProviderTest
 	private static final String CATEGORY_NAME = "category 1";
 	private static final String CATEGORY_NAME_2 = "category 2";
 	private static final String INDEXED_PROPERTY_NAME = "supercategories";
+	private static final PK PRODUCT_PK = PK.fromLong(1);
+	private static final PK PRODUCT_2_PK = PK.fromLong(2);
 
 	@Rule
 	public ExpectedException expectedException = ExpectedException.none();
@@ -62,7 +73,11 @@ public class VisualSearchCategoryNameValueProviderTest
 	@Mock
 	private CatalogVersionModel catalogVersion;
 	@Mock
+	private FlexibleSearchService flexibleSearchService;
+	@Mock
 	private ProductModel product;
+	@Mock
+	private ProductModel product2;
 
 	private VisualSearchIndexedPropertyModel indexedProperty;
 	private VisualSearchCategoryNameValueProvider visualSearchModelAttributeProvider;
@@ -78,6 +93,7 @@ public class VisualSearchCategoryNameValueProviderTest
 		visualSearchModelAttributeProvider.setSessionService(sessionService);
 		visualSearchModelAttributeProvider.setI18nService(i18nService);
 		visualSearchModelAttributeProvider.setCatalogVersionService(catalogVersionService);
+		visualSearchModelAttributeProvider.setFlexibleSearchService(flexibleSearchService);
 
 		given(typeService.getComposedTypeForClass(ProductModel.class)).willReturn(composedType);
 		given(Boolean.valueOf(typeService.hasAttribute(eq(composedType), any(String.class)))).willReturn(Boolean.TRUE);
@@ -86,6 +102,9 @@ public class VisualSearchCategoryNameValueProviderTest
 		given(sessionService.getRawSession(any(Session.class))).willReturn(jaloSession);
 
 		given(product.getCatalogVersion()).willReturn(catalogVersion);
+		given(product.getPk()).willReturn(PRODUCT_PK);
+		given(product2.getCatalogVersion()).willReturn(catalogVersion);
+		given(product2.getPk()).willReturn(PRODUCT_2_PK);
 
 		indexedProperty = new VisualSearchIndexedPropertyModel();
 		indexedProperty.setName(INDEXED_PROPERTY_NAME);
@@ -138,4 +157,48 @@ public class VisualSearchCategoryNameValueProviderTest
 		// then
 		assertEquals(value, expectedValue);
 	}
+
+	@Test
+	public void resolveValuesWithSingleQuery() throws Exception
+	{
+		// given
+		final CategoryModel category1 = mock(CategoryModel.class);
+		given(category1.getName()).willReturn(CATEGORY_NAME);
+		final CategoryModel category2 = mock(CategoryModel.class);
+		given(category2.getName()).willReturn(CATEGORY_NAME_2);
+		final SearchResult<Object> searchResult = mock(SearchResult.class);
+		given(searchResult.getResult()).willReturn(Arrays.asList(Arrays.asList(PRODUCT_PK, category1),
+				Arrays.asList(PRODUCT_PK, category2)));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(searchResult);
+
+		// when
+		final String[] values = visualSearchModelAttributeProvider.resolveValues(Arrays.<ItemModel> asList(product, product2),
+				indexedProperty);
+
+		// then
+		assertArrayEquals(new String[]
+		{ CATEGORY_NAME + "," + CATEGORY_NAME_2, "" }, values);
+		verify(flexibleSearchService, times(1)).search(any(FlexibleSearchQuery.class));
+		verify(modelService, never()).getAttributeValue(any(), any(String.class));
+		verify(jaloSession, times(1)).createLocalSessionContext();
+		verify(jaloSession, times(1)).removeLocalSessionContext();
+	}
+
+	@Test
+	public void resolveValuesOfOtherAttributesWithoutQuery() throws Exception
+	{
+		// given
+		indexedProperty.setName("categories");
+		final CategoryModel category = mock(CategoryModel.class);
+		given(category.getName()).willReturn(CATEGORY_NAME);
+		given(modelService.getAttributeValue(product, "categories")).willReturn(category);
+
+		// when
+		final String[] values = visualSearchModelAttributeProvider.resolveValues(Arrays.<ItemModel> asList(product), indexedProperty);
+
+		// then
+		assertArrayEquals(new String[]
+		{ CATEGORY_NAME }, values);
+		verify(flexibleSearchService, never()).search(any(FlexibleSearchQuery.class));
+	}
 }
@@ -3,20 +3,32 @@
  */
 package de.hybris.platform.visualsearch.indexer.providers.impl;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import de.hybris.bootstrap.annotations.UnitTest;
 import de.hybris.platform.catalog.CatalogVersionService;
 import de.hybris.platform.catalog.model.CatalogVersionModel;
 import de.hybris.platform.category.model.CategoryModel;
+import de.hybris.platform.core.PK;
+import de.hybris.platform.core.model.ItemModel;
 import de.hybris.platform.core.model.product.ProductModel;
+import de.hybris.platform.core.model.type.AtomicTypeModel;
+import de.hybris.platform.core.model.type.AttributeDescriptorModel;
 import de.hybris.platform.core.model.type.ComposedTypeModel;
 import de.hybris.platform.jalo.JaloSession;
 import de.hybris.platform.servicelayer.i18n.I18NService;
 import de.hybris.platform.servicelayer.model.ModelService;
+import de.hybris.platform.servicelayer.search.FlexibleSearchQuery;
+import de.hybris.platform.servicelayer.search.FlexibleSearchService;
+import de.hybris.platform.servicelayer.search.SearchResult;
 import de.hybris.platform.servicelayer.session.Session;
 import de.hybris.platform.servicelayer.session.SessionService;
 import de.hybris.platform.servicelayer.type.TypeService;
@@ -24,6 +36,8 @@ import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerRun
 import de.hybris.platform.visualsearch.model.VisualSearchIndexedPropertyModel;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Rule;
@@ -38,6 +52,9 @@ public class VisualSearchModelAttributeProviderTest
 {
 	private static final String ATTRIBUTE_VALUE = "attributeValue";
 	private static final String INDEXED_PROPERTY_NAME = "name";
+	private static final String CODE_PROPERTY_NAME = "code";
+	private static final String CODE_VALUE = "product1";
+	private static final PK PRODUCT_PK = PK.fromLong(1);
 
 	@Rule
 	public ExpectedException expectedException = ExpectedException.none();
@@ -53,6 +70,9 @@ public class VisualSearchModelAttributeProviderTest
 	@Mock
 	private CatalogVersionService catalogVersionService;
 
+	@Mock
+	private FlexibleSearchService flexibleSearchService;
+
 	@Mock
 	private ComposedTypeModel composedType;
 	@Mock
@@ -60,7 +80,13 @@ public class VisualSearchModelAttributeProviderTest
 	@Mock
 	private CatalogVersionModel catalogVersion;
 	@Mock
+	private CatalogVersionModel catalogVersion2;
+	@Mock
 	private ProductModel product;
+	@Mock
+	private ProductModel product2;
+	@Mock
+	private ProductModel product3;
 
 	private VisualSearchIndexedPropertyModel indexedProperty;
 	private VisualSearchModelAttributeProvider visualSearchModelAttributeProvider;
@@ -76,6 +102,7 @@ public class VisualSearchModelAttributeProviderTest
 		visualSearchModelAttributeProvider.setSessionService(sessionService);
 		visualSearchModelAttributeProvider.setI18nService(i18nService);
 		visualSearchModelAttributeProvider.setCatalogVersionService(catalogVersionService);
+		visualSearchModelAttributeProvider.setFlexibleSearchService(flexibleSearchService);
 
 		given(typeService.getComposedTypeForClass(ProductModel.class)).willReturn(composedType);
 		given(Boolean.valueOf(typeService.hasAttribute(eq(composedType), any(String.class)))).willReturn(Boolean.TRUE);
@@ -83,6 +110,8 @@ public class VisualSearchModelAttributeProviderTest
 		given(sessionService.getRawSession(any(Session.class))).willReturn(jaloSession);
 
 		given(product.getCatalogVersion()).willReturn(catalogVersion);
+		given(product2.getCatalogVersion()).willReturn(catalogVersion2);
+		given(product3.getCatalogVersion()).willReturn(catalogVersion);
 
 		indexedProperty = new VisualSearchIndexedPropertyModel();
 		indexedProperty.setName(INDEXED_PROPERTY_NAME);
@@ -155,4 +184,78 @@ public class VisualSearchModelAttributeProviderTest
 		// then
 		assertEquals(value, expectedValue);
 	}
+
+	@Test
+	public void resolveValuesSetsUpSessionOncePerCatalogVersion() throws Exception
+	{
+		// given
+		given(modelService.getAttributeValue(product, INDEXED_PROPERTY_NAME)).willReturn("value1");
+		given(modelService.getAttributeValue(product2, INDEXED_PROPERTY_NAME)).willReturn("value2");
+		given(modelService.getAttributeValue(product3, INDEXED_PROPERTY_NAME)).willReturn("value3");
+
+		// when
+		final String[] values = visualSearchModelAttributeProvider
+				.resolveValues(Arrays.<ItemModel> asList(product, product2, product3), indexedProperty);
+
+		// then
+		assertArrayEquals(new String[]
+		{ "value1", "value2", "value3" }, values);
+		verify(jaloSession, times(2)).createLocalSessionContext();
+		verify(jaloSession, times(2)).removeLocalSessionContext();
+		verify(catalogVersionService).setSessionCatalogVersions(Collections.singleton(catalogVersion));
+		verify(catalogVersionService).setSessionCatalogVersions(Collections.singleton(catalogVersion2));
+		verify(typeService, times(1)).hasAttribute(composedType, INDEXED_PROPERTY_NAME);
+	}
+
+	@Test
+	public void resolveValuesShouldFailIfItemIsNotProduct()
+	{
+		// expect
+		expectedException.expect(VisualSearchIndexerRuntimeException.class);
+		expectedException.expectMessage("Item to be indexed must be of Product type");
+
+		// when
+		visualSearchModelAttributeProvider.resolveValues(Arrays.<ItemModel> asList(product, new CategoryModel()), indexedProperty);
+	}
+
+	@Test
+	public void resolveProjectedValuesWithSingleQuery() throws Exception
+	{
+		// given
+		final VisualSearchIndexedPropertyModel codeProperty = new VisualSearchIndexedPropertyModel();
+		codeProperty.setName(CODE_PROPERTY_NAME);
+		given(typeService.getAttributeDescriptor(composedType, INDEXED_PROPERTY_NAME)).willReturn(createAttribute(false));
+		given(typeService.getAttributeDescriptor(composedType, CODE_PROPERTY_NAME)).willReturn(createAttribute(true));
+		given(modelService.getAttributeValue(product, INDEXED_PROPERTY_NAME)).willReturn(ATTRIBUTE_VALUE);
+		given(product.getPk()).willReturn(PRODUCT_PK);
+
+		final SearchResult<Object> searchResult = mock(SearchResult.class);
+		given(searchResult.getResult()).willReturn(Collections.singletonList(Arrays.asList(PRODUCT_PK, CODE_VALUE)));
+		given(flexibleSearchService.search(any(FlexibleSearchQuery.class))).willReturn(searchResult);
+
+		// when
+		final Map<VisualSearchIndexedPropertyModel, String[]> values = visualSearchModelAttributeProvider
+				.resolveProjectedValues(Arrays.<ItemModel> asList(product), Arrays.asList(indexedProperty, codeProperty));
+
+		// then
+		assertArrayEquals(new String[]
+		{ ATTRIBUTE_VALUE }, values.get(indexedProperty));
+		assertArrayEquals(new String[]
+		{ CODE_VALUE }, values.get(codeProperty));
+		verify(flexibleSearchService, times(1)).search(any(FlexibleSearchQuery.class));
+		verify(modelService, never()).getAttributeValue(product, CODE_PROPERTY_NAME);
+	}
+
+	private AttributeDescriptorModel createAttribute(final boolean projectable)
+	{
+		final AtomicTypeModel type = mock(AtomicTypeModel.class);
+		given(type.getJavaClass()).willReturn((Class) String.class);
+
+		final AttributeDescriptorModel attribute = mock(AttributeDescriptorModel.class);
+		given(attribute.getProperty()).willReturn(Boolean.TRUE);
+		given(attribute.getLocalized()).willReturn(Boolean.valueOf(!projectable));
+		given(attribute.getAttributeType()).willReturn(type);
+		given(attribute.getQualifier()).willReturn(projectable ? CODE_PROPERTY_NAME : INDEXED_PROPERTY_NAME);
+		return attribute;
+	}
 }
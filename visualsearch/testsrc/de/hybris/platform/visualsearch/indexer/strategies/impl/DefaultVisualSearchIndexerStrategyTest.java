@@ -11,6 +11,9 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import de.hybris.bootstrap.annotations.UnitTest;
 import de.hybris.platform.core.PK;
@@ -27,6 +30,7 @@ import de.hybris.platform.servicelayer.model.ModelService;
 import de.hybris.platform.servicelayer.tenant.TenantService;
 import de.hybris.platform.servicelayer.user.UserService;
 import de.hybris.platform.visualsearch.constants.VisualsearchConstants;
+import de.hybris.platform.visualsearch.enums.VisualSearchIndexerOperation;
 import de.hybris.platform.visualsearch.indexer.exceptions.VisualSearchIndexerException;
 import de.hybris.platform.visualsearch.model.VisualSearchConfigModel;
 import de.hybris.platform.visualsearch.model.VisualSearchIndexConfigModel;
@@ -35,6 +39,7 @@ import de.hybris.platform.visualsearch.model.VisualSearchServerConfigModel;
 import de.hybris.platform.visualsearch.model.VisualSearchSyncStatusCronJobModel;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
@@ -189,4 +194,40 @@ public class DefaultVisualSearchIndexerStrategyTest
 		assertThat(cronJob.getTriggers(), hasItem(trigger));
 
 	}
+
+	@Test
+	public void executeUpdateSuccess() throws Exception
+	{
+		// given
+		distributedIndexerProcess.setState(DistributedProcessState.SUCCEEDED);
+		given(distributedProcessService.wait(distributedIndexerProcess.getCode(), 5)).willReturn(distributedIndexerProcess);
+
+		final ResponseEntity<String> response = new ResponseEntity(HttpStatus.ACCEPTED);
+		given(restTemplate.exchange(eq(TRIGGER_SYNC_URL), eq(HttpMethod.GET), any(), eq(String.class))).willReturn(response);
+
+		final VisualSearchSyncStatusCronJobModel cronJob = new VisualSearchSyncStatusCronJobModel();
+		given(modelService.create(VisualSearchSyncStatusCronJobModel.class)).willReturn(cronJob);
+		given(modelService.create(TriggerModel.class)).willReturn(new TriggerModel());
+
+		final List<PK> deletePks = Collections.singletonList(PK.createFixedCounterPK(1, 100));
+
+		// when
+		visualSearchIndexedStrategy.execute(visualSearchConfig, pks, deletePks);
+
+		// then
+		verify(distributedProcessService, times(2)).create(any(CollectionBasedCreationData.class));
+		verify(restTemplate, times(1)).exchange(eq(TRIGGER_SYNC_URL), eq(HttpMethod.GET), any(), eq(String.class));
+		assertEquals(VisualSearchIndexerOperation.DELETE, distributedIndexerProcess.getIndexerOperation());
+	}
+
+	@Test
+	public void executeUpdateWithoutChanges() throws Exception
+	{
+		// when
+		visualSearchIndexedStrategy.execute(visualSearchConfig, Collections.emptyList(), Collections.emptyList());
+
+		// then
+		verify(distributedProcessService, never()).create(any(CollectionBasedCreationData.class));
+		verify(restTemplate, never()).exchange(any(String.class), any(HttpMethod.class), any(), eq(String.class));
+	}
 }